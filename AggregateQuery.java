@@ -0,0 +1,225 @@
+package Service;
+
+import java.util.*;
+
+/**
+ * An ad-hoc aggregation over the patients or the appointments, run by
+ * CppIntegrationService.aggregate(). Built fluently, e.g. age percentiles
+ * per disease:
+ *
+ *   AggregateQuery.patients()
+ *           .groupBy(Field.DISEASE)
+ *           .aggregate(Aggregate.count(), Aggregate.percentile(Field.AGE, 50),
+ *                      Aggregate.percentile(Field.AGE, 90))
+ *
+ * or appointments per specialization per week:
+ *
+ *   AggregateQuery.appointments()
+ *           .whereLabel(Field.STATUS, "SCHEDULED")
+ *           .groupBy(Field.SPECIALIZATION, Field.WEEK)
+ *           .aggregate(Aggregate.count())
+ *
+ * Every field must belong to the query's source; mistakes are reported
+ * with IllegalArgumentException as the query is built.
+ */
+public class AggregateQuery {
+
+    public enum Source { PATIENTS, APPOINTMENTS }
+
+    /** A value of each record; coded fields hold a code whose label is a name. */
+    public enum Field {
+        PATIENT_ID(Source.PATIENTS, false),
+        AGE(Source.PATIENTS, false),
+        AGE_BAND(Source.PATIENTS, false),          // ten-year bands, labelled "20-29"
+        DISEASE(Source.PATIENTS, true),
+        PRIORITY(Source.PATIENTS, true),           // triage level
+
+        PATIENT(Source.APPOINTMENTS, false),
+        DOCTOR(Source.APPOINTMENTS, false),
+        SPECIALIZATION(Source.APPOINTMENTS, true), // of the appointment's doctor
+        STATUS(Source.APPOINTMENTS, true),
+        DAY(Source.APPOINTMENTS, false),            // labelled YYYY-MM-DD
+        WEEK(Source.APPOINTMENTS, false),           // labelled by its Monday
+        MONTH(Source.APPOINTMENTS, false),          // labelled YYYY-MM
+        START_MINUTE(Source.APPOINTMENTS, false),
+        DURATION(Source.APPOINTMENTS, false);
+
+        private final Source source;
+        private final boolean coded;
+
+        Field(Source source, boolean coded) {
+            this.source = source;
+            this.coded = coded;
+        }
+
+        public Source getSource() {
+            return source;
+        }
+
+        /** Whether whereLabel can filter on this field. */
+        public boolean isCoded() {
+            return coded;
+        }
+    }
+
+    public enum Op { EQ, NE, LT, LE, GT, GE }
+
+    /** A value computed per group. */
+    public static final class Aggregate {
+        enum Kind { COUNT, SUM, AVG, MIN, MAX, PERCENTILE }
+
+        final Kind kind;
+        final Field field;
+        final double percentile;
+
+        private Aggregate(Kind kind, Field field, double percentile) {
+            this.kind = kind;
+            this.field = field;
+            this.percentile = percentile;
+        }
+
+        public static Aggregate count() {
+            return new Aggregate(Kind.COUNT, null, 0);
+        }
+
+        public static Aggregate sum(Field field) {
+            return new Aggregate(Kind.SUM, field, 0);
+        }
+
+        public static Aggregate avg(Field field) {
+            return new Aggregate(Kind.AVG, field, 0);
+        }
+
+        public static Aggregate min(Field field) {
+            return new Aggregate(Kind.MIN, field, 0);
+        }
+
+        public static Aggregate max(Field field) {
+            return new Aggregate(Kind.MAX, field, 0);
+        }
+
+        /** Nearest-rank percentile, 0 < p <= 100. */
+        public static Aggregate percentile(Field field, double p) {
+            if (!(p > 0 && p <= 100)) {
+                throw new IllegalArgumentException("Percentile must be in (0, 100]: " + p);
+            }
+            return new Aggregate(Kind.PERCENTILE, field, p);
+        }
+
+        @Override
+        public String toString() {
+            switch (kind) {
+                case COUNT:
+                    return "count";
+                case PERCENTILE:
+                    return "p" + (percentile == Math.rint(percentile) ? String.valueOf((long) percentile)
+                            : String.valueOf(percentile)) + "(" + field + ")";
+                default:
+                    return kind.name().toLowerCase(Locale.ROOT) + "(" + field + ")";
+            }
+        }
+    }
+
+    /** One filter: field op value, or the field's label containing text. */
+    static final class Condition {
+        final Field field;
+        final Op op;
+        final long value;
+        final String text;
+
+        Condition(Field field, Op op, long value, String text) {
+            this.field = field;
+            this.op = op;
+            this.value = value;
+            this.text = text;
+        }
+    }
+
+    static final int MAX_GROUP_FIELDS = 2;
+
+    private final Source source;
+    private final List<Field> groupBy = new ArrayList<>();
+    private final List<Aggregate> aggregates = new ArrayList<>();
+    private final List<Condition> conditions = new ArrayList<>();
+
+    private AggregateQuery(Source source) {
+        this.source = source;
+    }
+
+    public static AggregateQuery patients() {
+        return new AggregateQuery(Source.PATIENTS);
+    }
+
+    public static AggregateQuery appointments() {
+        return new AggregateQuery(Source.APPOINTMENTS);
+    }
+
+    // ===== BUILDING =====
+
+    /** Groups by up to two fields; without groupBy the whole source is one group. */
+    public AggregateQuery groupBy(Field... fields) {
+        if (groupBy.size() + fields.length > MAX_GROUP_FIELDS) {
+            throw new IllegalArgumentException("At most " + MAX_GROUP_FIELDS + " group-by fields");
+        }
+        for (Field field : fields) {
+            groupBy.add(check(field));
+        }
+        return this;
+    }
+
+    public AggregateQuery aggregate(Aggregate... wanted) {
+        for (Aggregate aggregate : wanted) {
+            if (aggregate.field != null) {
+                check(aggregate.field);
+            }
+            aggregates.add(aggregate);
+        }
+        return this;
+    }
+
+    /** Keeps records whose field compares to the value as op says. */
+    public AggregateQuery where(Field field, Op op, long value) {
+        conditions.add(new Condition(check(field), op, value, null));
+        return this;
+    }
+
+    /** Keeps records whose coded field's label contains the text, ignoring case. */
+    public AggregateQuery whereLabel(Field field, String text) {
+        if (!check(field).isCoded()) {
+            throw new IllegalArgumentException(field + " has no labels to match");
+        }
+        conditions.add(new Condition(field, null, 0, text.trim().toLowerCase(Locale.ROOT)));
+        return this;
+    }
+
+    /** Keeps appointments between two YYYY-MM-DD dates, inclusive. */
+    public AggregateQuery between(String fromDate, String toDate) {
+        where(Field.DAY, Op.GE, SlotAvailability.epochDay(fromDate));
+        return where(Field.DAY, Op.LE, SlotAvailability.epochDay(toDate));
+    }
+
+    // ===== READING =====
+    Source source() {
+        return source;
+    }
+
+    List<Field> groupFields() {
+        return groupBy;
+    }
+
+    /** The aggregates, or a single count if none were asked for. */
+    List<Aggregate> aggregates() {
+        return aggregates.isEmpty() ? Collections.singletonList(Aggregate.count()) : aggregates;
+    }
+
+    List<Condition> conditions() {
+        return conditions;
+    }
+
+    private Field check(Field field) {
+        if (field.getSource() != source) {
+            throw new IllegalArgumentException(field + " is not a field of " + source);
+        }
+        return field;
+    }
+}
@@ -0,0 +1,70 @@
+package Service;
+
+import java.util.*;
+
+/**
+ * The groups an AggregateQuery produced, in group-key order, each with
+ * one value per aggregate.
+ */
+public class AggregateResult {
+
+    /** One group: its key labels and its aggregate values. */
+    public static final class Row {
+        private final List<String> keys;
+        private final double[] values;
+
+        Row(List<String> keys, double[] values) {
+            this.keys = Collections.unmodifiableList(keys);
+            this.values = values;
+        }
+
+        public List<String> getKeys() {
+            return keys;
+        }
+
+        public double getValue(int aggregate) {
+            return values[aggregate];
+        }
+    }
+
+    private final List<String> keyColumns;
+    private final List<String> valueColumns;
+    private final List<Row> rows;
+
+    AggregateResult(List<String> keyColumns, List<String> valueColumns, List<Row> rows) {
+        this.keyColumns = Collections.unmodifiableList(keyColumns);
+        this.valueColumns = Collections.unmodifiableList(valueColumns);
+        this.rows = Collections.unmodifiableList(rows);
+    }
+
+    /** Names of the group-by fields. */
+    public List<String> getKeyColumns() {
+        return keyColumns;
+    }
+
+    /** Names of the aggregates, e.g. "count" or "p90(AGE)". */
+    public List<String> getValueColumns() {
+        return valueColumns;
+    }
+
+    public List<Row> getRows() {
+        return rows;
+    }
+
+    /** One "key, key: name=value ..." line per group. */
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        for (Row row : rows) {
+            result.append(row.keys.isEmpty() ? "All" : String.join(", ", row.keys)).append(':');
+            for (int i = 0; i < valueColumns.size(); i++) {
+                double value = row.values[i];
+                result.append(' ').append(valueColumns.get(i)).append('=')
+                      .append(value == Math.rint(value) ? String.valueOf((long) value)
+                              : String.format(Locale.ROOT, "%.2f", value));
+            }
+            result.append('\n');
+        }
+        return result.toString();
+    }
+}
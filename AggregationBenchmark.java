@@ -0,0 +1,112 @@
+package Service;
+
+import model.PatientTable;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static Service.AggregateQuery.Aggregate.*;
+import static Service.AggregateQuery.Field.*;
+
+/**
+ * Aggregation throughput at 1, 4 and 16 fork-join threads.
+ *
+ * Fills a PatientTable with synthetic patients and runs two queries:
+ * - percentiles: adults grouped by disease, with count, avg, p50, p90 and
+ *   max of age; checked once against a serial sort-based reference
+ * - two keys: diseases containing "e", grouped by age band and priority,
+ *   with count and sum of age
+ * Each query and pool size gets warmup runs, then the best of the timed
+ * runs is reported with the row throughput and the speedup over one
+ * thread. The speedup can only show on a machine with that many cores.
+ *
+ *   javac -d out *.java && java -Xmx2g -cp out Service.AggregationBenchmark [rows]
+ */
+public class AggregationBenchmark {
+
+    private static final String[] DISEASES = {"Diabetes", "Hypertension", "Flu", "Asthma",
+            "Migraine", "Heart Disease", "Gout", "Covid"};
+    private static final int[] THREADS = {1, 4, 16};
+    private static final int WARMUP = 5;
+    private static final int RUNS = 7;
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        PatientTable table = new PatientTable(rows);
+        Random random = new Random(5);
+        for (int i = 0; i < rows; i++) {
+            int row = table.add(i + 1, "Patient " + i, 1 + random.nextInt(100),
+                    DISEASES[random.nextInt(DISEASES.length)], "03001234567");
+            table.setPriority(row, 1 + random.nextInt(3));
+        }
+        AggregationEngine engine = AggregationEngine.overPatients(table);
+
+        AggregateQuery percentiles = AggregateQuery.patients()
+                .where(AGE, AggregateQuery.Op.GE, 18)
+                .groupBy(DISEASE)
+                .aggregate(count(), avg(AGE), percentile(AGE, 50), percentile(AGE, 90), max(AGE));
+        AggregateQuery twoKeys = AggregateQuery.patients()
+                .whereLabel(DISEASE, "e")
+                .groupBy(AGE_BAND, PRIORITY)
+                .aggregate(count(), sum(AGE));
+        check(engine.run(percentiles, ForkJoinPool.commonPool()), table);
+
+        System.out.printf("%,d rows%n", rows);
+        System.out.printf("%-12s %8s %8s %12s %8s%n", "query", "threads", "ms", "M rows/s", "speedup");
+        time("percentiles", percentiles, engine, rows);
+        time("two keys", twoKeys, engine, rows);
+        System.exit(0);
+    }
+
+    private static void time(String name, AggregateQuery query, AggregationEngine engine, int rows) {
+        long single = 0;
+        for (int threads : THREADS) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            for (int i = 0; i < WARMUP; i++) {
+                engine.run(query, pool);
+            }
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < RUNS; i++) {
+                long start = System.nanoTime();
+                engine.run(query, pool);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            pool.shutdown();
+            if (threads == 1) {
+                single = best;
+            }
+            System.out.printf("%-12s %8d %8d %12.1f %7.2fx%n",
+                    name, threads, best / 1_000_000, rows / (best / 1e3), (double) single / best);
+        }
+    }
+
+    // Compares the percentile query with a serial computation over sorted ages
+    private static void check(AggregateResult result, PatientTable table) {
+        Map<String, List<Integer>> ages = new TreeMap<>();
+        for (int row = 0; row < table.size(); row++) {
+            if (table.age(row) >= 18) {
+                ages.computeIfAbsent(table.disease(row), k -> new ArrayList<>()).add(table.age(row));
+            }
+        }
+        if (result.getRows().size() != ages.size()) {
+            throw new IllegalStateException(result.getRows().size() + " groups, expected " + ages.size());
+        }
+        for (AggregateResult.Row row : result.getRows()) {
+            List<Integer> values = ages.get(row.getKeys().get(0));
+            Collections.sort(values);
+            double avg = values.stream().mapToInt(Integer::intValue).average().orElse(0);
+            double[] expected = {values.size(), avg, nearestRank(values, 50), nearestRank(values, 90),
+                    values.get(values.size() - 1)};
+            for (int a = 0; a < expected.length; a++) {
+                if (Math.abs(row.getValue(a) - expected[a]) > 1e-9) {
+                    throw new IllegalStateException(row.getKeys() + " aggregate " + a + " is " + row.getValue(a)
+                            + ", expected " + expected[a]);
+                }
+            }
+        }
+    }
+
+    private static int nearestRank(List<Integer> sorted, double p) {
+        return sorted.get((int) Math.ceil(p / 100 * sorted.size()) - 1);
+    }
+}
@@ -0,0 +1,461 @@
+package Service;
+
+import model.Appointment;
+import model.PatientTable;
+import model.StringDictionary;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Runs AggregateQueries over the patient table or the appointments.
+ *
+ * Each field is bound to a function from record index to int, read
+ * straight from the stored columns. The record range is split into
+ * chunks on a ForkJoinPool; each chunk filters and folds its records
+ * into a private table of per-group partial aggregates (count, sum, min,
+ * max, and for percentiles a histogram when the field's values are small,
+ * otherwise the values themselves), and the partial
+ * tables are merged pairwise as the tasks join. Chunks share nothing
+ * while they run, so the work spreads across cores.
+ */
+class AggregationEngine {
+
+    private static final int MIN_CHUNK = 4096;
+
+    private final AggregateQuery.Source source;
+    private final int size;
+    private final Map<AggregateQuery.Field, IntUnaryOperator> values = new EnumMap<>(AggregateQuery.Field.class);
+    private final Map<AggregateQuery.Field, IntFunction<String>> labels = new EnumMap<>(AggregateQuery.Field.class);
+    private final Map<AggregateQuery.Field, Integer> codeCounts = new EnumMap<>(AggregateQuery.Field.class);
+    // Exclusive upper bound of fields whose values are known to be small and non-negative
+    private final Map<AggregateQuery.Field, Integer> valueBounds = new EnumMap<>(AggregateQuery.Field.class);
+
+    private AggregationEngine(AggregateQuery.Source source, int size) {
+        this.source = source;
+        this.size = size;
+    }
+
+    // ===== SOURCES =====
+
+    /** The table's rows as of now; rows added later are not seen. */
+    static AggregationEngine overPatients(PatientTable table) {
+        AggregationEngine engine = new AggregationEngine(AggregateQuery.Source.PATIENTS, table.size());
+        StringDictionary diseases = table.diseaseDictionary();
+        engine.bind(AggregateQuery.Field.PATIENT_ID, table::id, String::valueOf);
+        engine.bind(AggregateQuery.Field.AGE, table::age, String::valueOf);
+        engine.bind(AggregateQuery.Field.AGE_BAND, row -> AnalyticsCounters.ageBand(table.age(row)),
+                AnalyticsSnapshot::getAgeBandLabel);
+        engine.valueBounds.put(AggregateQuery.Field.AGE, 256);                 // stored as an unsigned byte
+        engine.valueBounds.put(AggregateQuery.Field.AGE_BAND, AnalyticsCounters.AGE_BANDS);
+        engine.bindCoded(AggregateQuery.Field.DISEASE, table::diseaseCode, diseases::decode, diseases.size());
+        engine.bindCoded(AggregateQuery.Field.PRIORITY, table::priority, TriageClassifier::levelName,
+                TriageClassifier.NORMAL + 1);
+        return engine;
+    }
+
+    static AggregationEngine overAppointments(List<Appointment> appointments, DoctorRegistry doctors) {
+        AggregationEngine engine = new AggregationEngine(AggregateQuery.Source.APPOINTMENTS, appointments.size());
+        int specializationCount = doctors.groups().size();
+        int[] specializationOf = specializations(doctors, specializationCount);
+        engine.bind(AggregateQuery.Field.PATIENT, i -> appointments.get(i).getPatientId(), String::valueOf);
+        engine.bind(AggregateQuery.Field.DOCTOR, i -> appointments.get(i).getDoctorId(), String::valueOf);
+        engine.bindCoded(AggregateQuery.Field.SPECIALIZATION, i -> {
+            int doctor = appointments.get(i).getDoctorId();
+            return doctor >= 0 && doctor < specializationOf.length ? specializationOf[doctor] : specializationCount;
+        }, code -> code < specializationCount ? doctors.specializationName(code) : "Unknown", specializationCount + 1);
+        engine.bindCoded(AggregateQuery.Field.STATUS, i -> appointments.get(i).getStatus().ordinal(),
+                code -> Appointment.Status.values()[code].name(), Appointment.Status.values().length);
+        engine.bind(AggregateQuery.Field.DAY, i -> appointments.get(i).getEpochDay(), SlotAvailability::formatDate);
+        engine.bind(AggregateQuery.Field.WEEK, i -> weekOf(appointments.get(i).getEpochDay()),
+                SlotAvailability::formatDate);
+        engine.bind(AggregateQuery.Field.MONTH, i -> monthOf(appointments.get(i).getEpochDay()),
+                month -> String.format("%04d-%02d", Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1));
+        engine.bind(AggregateQuery.Field.START_MINUTE, i -> appointments.get(i).getStartMinute(),
+                SlotAvailability::formatTime);
+        engine.bind(AggregateQuery.Field.DURATION, i -> appointments.get(i).getDurationMinutes(), String::valueOf);
+        return engine;
+    }
+
+    // ===== RUNNING =====
+
+    AggregateResult run(AggregateQuery query, ForkJoinPool pool) {
+        if (query.source() != source) {
+            throw new IllegalArgumentException("Query over " + query.source() + " run on " + source);
+        }
+        Plan plan = new Plan(query);
+        int chunk = Math.max(MIN_CHUNK, size / (pool.getParallelism() * 8) + 1);
+        GroupTable merged = pool.invoke(new Chunk(plan, 0, size, chunk));
+
+        List<AggregateQuery.Aggregate> aggregates = query.aggregates();
+        List<String> keyColumns = new ArrayList<>();
+        for (AggregateQuery.Field field : query.groupFields()) {
+            keyColumns.add(field.name());
+        }
+        List<String> valueColumns = new ArrayList<>();
+        for (AggregateQuery.Aggregate aggregate : aggregates) {
+            valueColumns.add(aggregate.toString());
+        }
+
+        Integer[] order = new Integer[merged.size];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingInt(i -> (int) (merged.keys[i] >> 32))
+                .thenComparingInt(i -> (int) merged.keys[i]));
+        List<AggregateResult.Row> rows = new ArrayList<>(order.length);
+        for (int i : order) {
+            rows.add(new AggregateResult.Row(plan.labels(merged.keys[i]), merged.partials[i].finish(plan)));
+        }
+        return new AggregateResult(keyColumns, valueColumns, rows);
+    }
+
+    // The query resolved against this source's bindings
+    private final class Plan {
+        final IntUnaryOperator[] groupValues;
+        final List<IntFunction<String>> groupLabels;
+        final AggregateQuery.Aggregate[] aggregates;
+        final IntUnaryOperator[] aggregateValues;     // null for count
+        final int[] histogramSizes;                   // per percentile aggregate; 0 = keep the values
+        final IntUnaryOperator[] conditionValues;
+        final AggregateQuery.Condition[] conditions;
+        final boolean[][] labelMatches;               // per label condition: code -> matches
+
+        Plan(AggregateQuery query) {
+            List<AggregateQuery.Field> groupFields = query.groupFields();
+            groupValues = new IntUnaryOperator[groupFields.size()];
+            groupLabels = new ArrayList<>(groupFields.size());
+            for (int g = 0; g < groupValues.length; g++) {
+                groupValues[g] = values.get(groupFields.get(g));
+                groupLabels.add(labels.get(groupFields.get(g)));
+            }
+
+            aggregates = query.aggregates().toArray(new AggregateQuery.Aggregate[0]);
+            aggregateValues = new IntUnaryOperator[aggregates.length];
+            histogramSizes = new int[aggregates.length];
+            for (int a = 0; a < aggregates.length; a++) {
+                aggregateValues[a] = aggregates[a].field == null ? null : values.get(aggregates[a].field);
+                if (aggregates[a].kind == AggregateQuery.Aggregate.Kind.PERCENTILE) {
+                    histogramSizes[a] = valueBounds.getOrDefault(aggregates[a].field, 0);
+                }
+            }
+
+            conditions = query.conditions().toArray(new AggregateQuery.Condition[0]);
+            conditionValues = new IntUnaryOperator[conditions.length];
+            labelMatches = new boolean[conditions.length][];
+            for (int c = 0; c < conditions.length; c++) {
+                AggregateQuery.Field field = conditions[c].field;
+                conditionValues[c] = values.get(field);
+                if (conditions[c].text != null) {
+                    // Match each code's label once instead of each record's
+                    boolean[] matches = new boolean[codeCounts.get(field)];
+                    for (int code = 0; code < matches.length; code++) {
+                        matches[code] = labels.get(field).apply(code).toLowerCase(Locale.ROOT)
+                                .contains(conditions[c].text);
+                    }
+                    labelMatches[c] = matches;
+                }
+            }
+        }
+
+        boolean accepts(int record) {
+            for (int c = 0; c < conditions.length; c++) {
+                int value = conditionValues[c].applyAsInt(record);
+                if (labelMatches[c] != null) {
+                    if (value < 0 || value >= labelMatches[c].length || !labelMatches[c][value]) {
+                        return false;
+                    }
+                } else if (!compare(value, conditions[c].op, conditions[c].value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long keyOf(int record) {
+            switch (groupValues.length) {
+                case 0:
+                    return 0;
+                case 1:
+                    return (long) groupValues[0].applyAsInt(record) << 32;
+                default:
+                    return ((long) groupValues[0].applyAsInt(record) << 32)
+                            | (groupValues[1].applyAsInt(record) & 0xFFFFFFFFL);
+            }
+        }
+
+        List<String> labels(long key) {
+            List<String> keyLabels = new ArrayList<>(groupLabels.size());
+            for (int g = 0; g < groupLabels.size(); g++) {
+                keyLabels.add(groupLabels.get(g).apply(g == 0 ? (int) (key >> 32) : (int) key));
+            }
+            return keyLabels;
+        }
+    }
+
+    private static final class Chunk extends RecursiveTask<GroupTable> {
+        private static final long serialVersionUID = 1L;
+
+        private final Plan plan;
+        private final int from;
+        private final int to;
+        private final int chunk;
+
+        Chunk(Plan plan, int from, int to, int chunk) {
+            this.plan = plan;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected GroupTable compute() {
+            if (to - from <= chunk) {
+                GroupTable groups = new GroupTable();
+                for (int record = from; record < to; record++) {
+                    if (plan.accepts(record)) {
+                        groups.partial(plan.keyOf(record), plan).add(plan, record);
+                    }
+                }
+                return groups;
+            }
+            int middle = (from + to) >>> 1;
+            Chunk left = new Chunk(plan, from, middle, chunk);
+            left.fork();
+            GroupTable right = new Chunk(plan, middle, to, chunk).compute();
+            return left.join().mergeFrom(right, plan);
+        }
+    }
+
+    /** Partial aggregates of one group within one chunk. */
+    private static final class Partial {
+        long count;
+        final long[] sums;
+        final long[] mins;
+        final long[] maxes;
+        final long[][] histograms;   // per percentile aggregate over a small field: value -> count
+        final int[][] kept;          // per other percentile aggregate: the values seen
+        final int[] keptCounts;
+
+        Partial(Plan plan) {
+            int n = plan.aggregates.length;
+            sums = new long[n];
+            mins = new long[n];
+            maxes = new long[n];
+            Arrays.fill(mins, Long.MAX_VALUE);
+            Arrays.fill(maxes, Long.MIN_VALUE);
+            histograms = new long[n][];
+            kept = new int[n][];
+            keptCounts = new int[n];
+            for (int a = 0; a < n; a++) {
+                if (plan.aggregates[a].kind != AggregateQuery.Aggregate.Kind.PERCENTILE) {
+                    continue;
+                }
+                if (plan.histogramSizes[a] > 0) {
+                    histograms[a] = new long[plan.histogramSizes[a]];
+                } else {
+                    kept[a] = new int[16];
+                }
+            }
+        }
+
+        void add(Plan plan, int record) {
+            count++;
+            for (int a = 0; a < sums.length; a++) {
+                IntUnaryOperator field = plan.aggregateValues[a];
+                if (field == null) {
+                    continue;
+                }
+                int value = field.applyAsInt(record);
+                sums[a] += value;
+                mins[a] = Math.min(mins[a], value);
+                maxes[a] = Math.max(maxes[a], value);
+                if (histograms[a] != null) {
+                    histograms[a][value]++;
+                } else if (kept[a] != null) {
+                    if (keptCounts[a] == kept[a].length) {
+                        kept[a] = Arrays.copyOf(kept[a], kept[a].length * 2);
+                    }
+                    kept[a][keptCounts[a]++] = value;
+                }
+            }
+        }
+
+        void merge(Partial other) {
+            count += other.count;
+            for (int a = 0; a < sums.length; a++) {
+                sums[a] += other.sums[a];
+                mins[a] = Math.min(mins[a], other.mins[a]);
+                maxes[a] = Math.max(maxes[a], other.maxes[a]);
+                if (histograms[a] != null) {
+                    for (int v = 0; v < histograms[a].length; v++) {
+                        histograms[a][v] += other.histograms[a][v];
+                    }
+                } else if (kept[a] != null) {
+                    if (keptCounts[a] + other.keptCounts[a] > kept[a].length) {
+                        kept[a] = Arrays.copyOf(kept[a], keptCounts[a] + other.keptCounts[a]);
+                    }
+                    System.arraycopy(other.kept[a], 0, kept[a], keptCounts[a], other.keptCounts[a]);
+                    keptCounts[a] += other.keptCounts[a];
+                }
+            }
+        }
+
+        double[] finish(Plan plan) {
+            double[] result = new double[sums.length];
+            for (int a = 0; a < result.length; a++) {
+                switch (plan.aggregates[a].kind) {
+                    case COUNT:
+                        result[a] = count;
+                        break;
+                    case SUM:
+                        result[a] = sums[a];
+                        break;
+                    case AVG:
+                        result[a] = (double) sums[a] / count;
+                        break;
+                    case MIN:
+                        result[a] = mins[a];
+                        break;
+                    case MAX:
+                        result[a] = maxes[a];
+                        break;
+                    default:
+                        result[a] = percentile(a, plan.aggregates[a].percentile);
+                }
+            }
+            return result;
+        }
+
+        // Nearest rank: the smallest value with at least p% of the values at or below it
+        private double percentile(int a, double p) {
+            long rank = Math.max(1, (long) Math.ceil(p / 100 * count));
+            if (histograms[a] != null) {
+                long seen = 0;
+                for (int v = 0; v < histograms[a].length; v++) {
+                    seen += histograms[a][v];
+                    if (seen >= rank) {
+                        return v;
+                    }
+                }
+            }
+            int[] sorted = Arrays.copyOf(kept[a], keptCounts[a]);
+            Arrays.sort(sorted);
+            return sorted[(int) rank - 1];
+        }
+    }
+
+    /** Open-addressing map from packed group key to its partial aggregates. */
+    private static final class GroupTable {
+        long[] keys = new long[16];
+        Partial[] partials = new Partial[16];
+        private int[] slots = new int[32];   // index + 1 into keys/partials, 0 = empty
+        int size;
+
+        Partial partial(long key, Plan plan) {
+            int mask = slots.length - 1;
+            int slot = mix(key) & mask;
+            while (slots[slot] != 0) {
+                int index = slots[slot] - 1;
+                if (keys[index] == key) {
+                    return partials[index];
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                partials = Arrays.copyOf(partials, size * 2);
+            }
+            keys[size] = key;
+            partials[size] = new Partial(plan);
+            slots[slot] = ++size;
+            if (size * 2 > slots.length) {
+                rehash();
+            }
+            return partials[size - 1];
+        }
+
+        GroupTable mergeFrom(GroupTable other, Plan plan) {
+            for (int i = 0; i < other.size; i++) {
+                partial(other.keys[i], plan).merge(other.partials[i]);
+            }
+            return this;
+        }
+
+        private void rehash() {
+            slots = new int[slots.length * 2];
+            int mask = slots.length - 1;
+            for (int i = 0; i < size; i++) {
+                int slot = mix(keys[i]) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = i + 1;
+            }
+        }
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    // ===== INTERNALS =====
+    private void bind(AggregateQuery.Field field, IntUnaryOperator value, IntFunction<String> label) {
+        values.put(field, value);
+        labels.put(field, label);
+    }
+
+    private void bindCoded(AggregateQuery.Field field, IntUnaryOperator value, IntFunction<String> label,
+                           int codeCount) {
+        bind(field, value, label);
+        codeCounts.put(field, codeCount);
+    }
+
+    // Specialization code per doctor id; unknown for ids no doctor had when the query started
+    private static int[] specializations(DoctorRegistry doctors, int unknown) {
+        int highest = 0;
+        for (DoctorRegistry.Entry doctor : doctors.entries()) {
+            highest = Math.max(highest, doctor.id);
+        }
+        int[] codes = new int[highest + 1];
+        Arrays.fill(codes, unknown);
+        for (DoctorRegistry.Entry doctor : doctors.entries()) {
+            if (doctor.id <= highest && doctor.specialization < unknown) {
+                codes[doctor.id] = doctor.specialization;
+            }
+        }
+        return codes;
+    }
+
+    private static boolean compare(int value, AggregateQuery.Op op, long bound) {
+        switch (op) {
+            case EQ:
+                return value == bound;
+            case NE:
+                return value != bound;
+            case LT:
+                return value < bound;
+            case LE:
+                return value <= bound;
+            case GT:
+                return value > bound;
+            default:
+                return value >= bound;
+        }
+    }
+
+    // Epoch day of the Monday starting the day's week (1970-01-01 was a Thursday)
+    private static int weekOf(int epochDay) {
+        return epochDay - Math.floorMod(epochDay + 3, 7);
+    }
+
+    private static int monthOf(int epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+}
@@ -0,0 +1,168 @@
+package Service;
+
+import model.Appointment;
+import model.StringDictionary;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals behind the dashboard and analytics screens: patients per
+ * disease and per age band, appointments per status, per doctor and per
+ * day. Every insert and status change bumps the counters it affects, so
+ * reading them never scans patients or appointments.
+ *
+ * Counters are LongAdders, so concurrent writers rarely touch the same
+ * cell. A change that moves several counters holds one stripe of a
+ * StripedLocks (chosen by thread) while it does so; snapshot() takes every
+ * stripe, so it never sees half of a change, e.g. a cancellation counted
+ * in the status totals but not yet in the day totals.
+ */
+class AnalyticsCounters {
+
+    static final int AGE_BAND_YEARS = 10;
+    static final int AGE_BANDS = 12;   // 0-9 ... 110-119
+
+    private static final Appointment.Status[] STATUSES = Appointment.Status.values();
+
+    private final StripedLocks locks = new StripedLocks(16);
+
+    private final LongAdder patients = new LongAdder();
+    private final List<LongAdder> byDisease = new CopyOnWriteArrayList<>();   // indexed by dictionary code
+    private final LongAdder[] byAgeBand = adders(AGE_BANDS);
+    private final LongAdder[] byStatus = adders(STATUSES.length);
+    // Appointments that are not cancelled
+    private final Map<Integer, LongAdder> byDoctor = new ConcurrentHashMap<>();
+    private final Map<Integer, LongAdder> byDay = new ConcurrentHashMap<>();
+
+    // ===== PATIENTS =====
+
+    void patientAdded(int diseaseCode, int age) {
+        LongAdder disease = diseaseCounter(diseaseCode);
+        withStripe(() -> {
+            patients.increment();
+            disease.increment();
+            byAgeBand[ageBand(age)].increment();
+        });
+    }
+
+    /** Zeroes the patient counters, for when every patient is removed. */
+    void patientsCleared() {
+        locks.withAllLocks(() -> {
+            patients.reset();
+            byDisease.forEach(LongAdder::reset);
+            for (LongAdder band : byAgeBand) {
+                band.reset();
+            }
+            return null;
+        });
+    }
+
+    // ===== APPOINTMENTS =====
+
+    void appointmentAdded(int doctorId, int epochDay, Appointment.Status status) {
+        withStripe(() -> {
+            byStatus[status.ordinal()].increment();
+            if (status != Appointment.Status.CANCELLED) {
+                counter(byDoctor, doctorId).increment();
+                counter(byDay, epochDay).increment();
+            }
+        });
+    }
+
+    /** Records an appointment's move from one status to its current one. */
+    void statusChanged(Appointment appointment, Appointment.Status from) {
+        Appointment.Status to = appointment.getStatus();
+        withStripe(() -> {
+            byStatus[from.ordinal()].decrement();
+            byStatus[to.ordinal()].increment();
+            if (to == Appointment.Status.CANCELLED && from != Appointment.Status.CANCELLED) {
+                counter(byDoctor, appointment.getDoctorId()).decrement();
+                counter(byDay, appointment.getEpochDay()).decrement();
+            }
+        });
+    }
+
+    /** Records an active appointment moving between doctors. */
+    void reassigned(int fromDoctorId, int toDoctorId) {
+        withStripe(() -> {
+            counter(byDoctor, fromDoctorId).decrement();
+            counter(byDoctor, toDoctorId).increment();
+        });
+    }
+
+    // ===== SNAPSHOT =====
+
+    /** Every counter as of one instant; costs one sum per counter, independent of row counts. */
+    AnalyticsSnapshot snapshot(StringDictionary diseases) {
+        return locks.withAllLocks(() -> {
+            Map<String, Long> perDisease = new LinkedHashMap<>();
+            for (int code = 0; code < byDisease.size(); code++) {
+                long count = byDisease.get(code).sum();
+                if (count > 0) {
+                    perDisease.merge(diseases.decode(code), count, Long::sum);
+                }
+            }
+            long[] ageBands = new long[AGE_BANDS];
+            for (int band = 0; band < AGE_BANDS; band++) {
+                ageBands[band] = byAgeBand[band].sum();
+            }
+            Map<Appointment.Status, Long> perStatus = new EnumMap<>(Appointment.Status.class);
+            for (Appointment.Status status : STATUSES) {
+                perStatus.put(status, byStatus[status.ordinal()].sum());
+            }
+            return new AnalyticsSnapshot(patients.sum(), perDisease, ageBands, perStatus,
+                    sums(byDoctor), sums(byDay));
+        });
+    }
+
+    // ===== INTERNALS =====
+    private void withStripe(Runnable change) {
+        int stripe = locks.stripeOf(0, (int) Thread.currentThread().getId());
+        locks.withLocks(stripe, stripe, () -> {
+            change.run();
+            return null;
+        });
+    }
+
+    private LongAdder diseaseCounter(int code) {
+        if (code >= byDisease.size()) {
+            synchronized (byDisease) {
+                while (byDisease.size() <= code) {
+                    byDisease.add(new LongAdder());
+                }
+            }
+        }
+        return byDisease.get(code);
+    }
+
+    static int ageBand(int age) {
+        return Math.max(0, Math.min(AGE_BANDS - 1, age / AGE_BAND_YEARS));
+    }
+
+    private static LongAdder counter(Map<Integer, LongAdder> counters, int key) {
+        return counters.computeIfAbsent(key, k -> new LongAdder());
+    }
+
+    // Non-zero counters in key order
+    private static Map<Integer, Long> sums(Map<Integer, LongAdder> counters) {
+        Map<Integer, Long> sums = new TreeMap<>();
+        counters.forEach((key, adder) -> {
+            long sum = adder.sum();
+            if (sum != 0) {
+                sums.put(key, sum);
+            }
+        });
+        return sums;
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
@@ -0,0 +1,83 @@
+package Service;
+
+import model.Appointment;
+
+import java.util.*;
+
+/**
+ * Dashboard and analytics figures as of one instant, read from the
+ * running totals by CppIntegrationService.getAnalyticsSnapshot().
+ * All figures in one snapshot agree with each other.
+ */
+public class AnalyticsSnapshot {
+
+    private final long patients;
+    private final Map<String, Long> patientsByDisease;
+    private final long[] patientsByAgeBand;
+    private final Map<Appointment.Status, Long> appointmentsByStatus;
+    private final Map<Integer, Long> appointmentsByDoctor;
+    private final Map<String, Long> appointmentsByDay;
+
+    AnalyticsSnapshot(long patients, Map<String, Long> patientsByDisease, long[] patientsByAgeBand,
+                      Map<Appointment.Status, Long> appointmentsByStatus,
+                      Map<Integer, Long> appointmentsByDoctor, Map<Integer, Long> appointmentsByEpochDay) {
+        this.patients = patients;
+        this.patientsByDisease = Collections.unmodifiableMap(patientsByDisease);
+        this.patientsByAgeBand = patientsByAgeBand;
+        this.appointmentsByStatus = Collections.unmodifiableMap(appointmentsByStatus);
+        this.appointmentsByDoctor = Collections.unmodifiableMap(appointmentsByDoctor);
+        Map<String, Long> byDay = new LinkedHashMap<>();
+        appointmentsByEpochDay.forEach((day, count) -> byDay.put(SlotAvailability.formatDate(day), count));
+        this.appointmentsByDay = Collections.unmodifiableMap(byDay);
+    }
+
+    public long getPatients() {
+        return patients;
+    }
+
+    /** Patients per disease, in the order the diseases first appeared. */
+    public Map<String, Long> getPatientsByDisease() {
+        return patientsByDisease;
+    }
+
+    /** Patients per age band; band i covers the ages getAgeBandLabel(i) names. */
+    public long[] getPatientsByAgeBand() {
+        return patientsByAgeBand.clone();
+    }
+
+    public static int getAgeBandCount() {
+        return AnalyticsCounters.AGE_BANDS;
+    }
+
+    /** "0-9", "10-19", ... for band 0, 1, ... */
+    public static String getAgeBandLabel(int band) {
+        int from = band * AnalyticsCounters.AGE_BAND_YEARS;
+        return from + "-" + (from + AnalyticsCounters.AGE_BAND_YEARS - 1);
+    }
+
+    public Map<Appointment.Status, Long> getAppointmentsByStatus() {
+        return appointmentsByStatus;
+    }
+
+    public long getTotalAppointments() {
+        long total = 0;
+        for (long count : appointmentsByStatus.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /** Appointments that are not cancelled, per doctor id in id order. */
+    public Map<Integer, Long> getAppointmentsByDoctor() {
+        return appointmentsByDoctor;
+    }
+
+    /** Appointments that are not cancelled, per YYYY-MM-DD date in date order. */
+    public Map<String, Long> getAppointmentsByDay() {
+        return appointmentsByDay;
+    }
+
+    public long getAppointmentsOn(String date) {
+        return appointmentsByDay.getOrDefault(date, 0L);
+    }
+}
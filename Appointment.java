@@ -0,0 +1,136 @@
+package model;
+
+import java.time.LocalDate;
+
+/**
+ * Model class representing a scheduled Appointment
+ * Mirrors the AppointmentRecord of the C++ scheduler
+ *
+ * The date is held as days since 1970-01-01 and the time as minutes after
+ * midnight; a duration of 0 means a single "HH:MM" time rather than a
+ * "HH:MM-HH:MM" range.
+ */
+public class Appointment {
+
+    /** Lifecycle of a booking; only SCHEDULED appointments hold a slot. */
+    public enum Status {
+        SCHEDULED, COMPLETED, CANCELLED, NO_SHOW
+    }
+
+    private int id;
+    private int patientId;
+    private int doctorId;
+    private int epochDay;
+    private int startMinute;
+    private int durationMinutes;
+    private Status status;
+
+    /* ==============================
+       CONSTRUCTOR
+       ============================== */
+
+    public Appointment(int id, int patientId, int doctorId,
+                       int epochDay, int startMinute, int durationMinutes) {
+        this(id, patientId, doctorId, epochDay, startMinute, durationMinutes, Status.SCHEDULED);
+    }
+
+    public Appointment(int id, int patientId, int doctorId,
+                       int epochDay, int startMinute, int durationMinutes, Status status) {
+        this.id = id;
+        this.patientId = patientId;
+        this.doctorId = doctorId;
+        this.epochDay = epochDay;
+        this.startMinute = startMinute;
+        this.durationMinutes = durationMinutes;
+        this.status = status;
+    }
+
+    /* ==============================
+       GETTERS & SETTERS
+       ============================== */
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(int patientId) {
+        this.patientId = patientId;
+    }
+
+    public int getDoctorId() {
+        return doctorId;
+    }
+
+    public void setDoctorId(int doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public int getEpochDay() {
+        return epochDay;
+    }
+
+    public void setEpochDay(int epochDay) {
+        this.epochDay = epochDay;
+    }
+
+    public int getStartMinute() {
+        return startMinute;
+    }
+
+    public void setStartMinute(int startMinute) {
+        this.startMinute = startMinute;
+    }
+
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    public void setDurationMinutes(int durationMinutes) {
+        this.durationMinutes = durationMinutes;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /** The date as YYYY-MM-DD. */
+    public String getDate() {
+        return LocalDate.ofEpochDay(epochDay).toString();
+    }
+
+    /** The time as HH:MM, or HH:MM-HH:MM for a range. */
+    public String getTime() {
+        String start = formatMinute(startMinute);
+        return durationMinutes == 0 ? start : start + "-" + formatMinute(startMinute + durationMinutes);
+    }
+
+    private static String formatMinute(int minute) {
+        int hours = minute / 60;
+        int minutes = minute % 60;
+        return (hours < 10 ? "0" : "") + hours + (minutes < 10 ? ":0" : ":") + minutes;
+    }
+
+    /* ==============================
+       OBJECT REPRESENTATION
+       ============================== */
+
+    @Override
+    public String toString() {
+        return String.format(
+            "Appointment{id=%d, patientId=%d, doctorId=%d, date='%s', time='%s', status=%s}",
+            id, patientId, doctorId, getDate(), getTime(), status
+        );
+    }
+}
@@ -0,0 +1,530 @@
+package Service;
+
+import model.Appointment;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Appointment persistence: fixed-width records in a memory-mapped file,
+ * plus a write-ahead log of the mutations made since its last checkpoint.
+ *
+ * appointments.dat: a HEADER_BYTES header [int magic][int recordBytes]
+ * [long walSegment][int nextId][int count], then one RECORD_BYTES record
+ * per appointment in id order:
+ *   [int id][int patientId][int doctorId][int epochDay][short startMinute]
+ *   [short durationMinutes][byte status][3 bytes padding]
+ * A booking writes its record in place, a status change one byte and a
+ * reassignment the doctor field, so the file is never rewritten. Each
+ * mutation is also logged; a checkpoint forces the mapping, records the
+ * WAL segment that follows it in the header and drops the older segments.
+ * Recovery reads the first count records and replays only the WAL from
+ * walSegment on.
+ *
+ * In memory, appointments are held in id order with three indexes of
+ * packed (day, minute, id) keys: per patient, per doctor and a calendar
+ * of all appointments. Range queries walk only the matching keys.
+ */
+public class AppointmentStore implements Closeable {
+
+    private static final int FILE_MAGIC = 0x4D414431;        // "MAD1"
+    private static final int HEADER_BYTES = 32;
+    private static final int RECORD_BYTES = 24;
+    private static final int STATUS_OFFSET = 20;
+    private static final int CHECKPOINT_EVERY = 10_000;      // mutations between checkpoints
+
+    private static final byte OP_ADD = 2;
+    private static final byte OP_STATUS = 3;
+    private static final byte OP_REASSIGN = 4;
+
+    private static final Appointment.Status[] STATUSES = Appointment.Status.values();
+
+    // Index keys: [day + DAY_BIAS : 21 bits][minute : 11 bits][id : 31 bits]
+    private static final int DAY_BIAS = 1 << 20;
+
+    private final FileChannel records;
+    private MappedByteBuffer recordMap;
+
+    private final List<Appointment> appointments = new ArrayList<>(); // id order = record order
+    private final Map<Integer, TreeSet<Long>> byPatient = new HashMap<>();
+    private final Map<Integer, TreeSet<Long>> byDoctor = new HashMap<>();
+    private final TreeSet<Long> calendar = new TreeSet<>();
+    private final ExecutorService checkpointer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "appointment-checkpointer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private WriteAheadLog wal;
+    private int nextId = 1;
+    private int mutationsSinceCheckpoint;
+
+    private AppointmentStore(Path recordsPath) throws IOException {
+        this.records = FileChannel.open(recordsPath, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Recovers the store from DataFiles. On first start the legacy text file
+     * (Java "pid,did,date,time" or C++ "id,pid,did,date,slot,status" rows)
+     * is imported and checkpointed.
+     */
+    public static AppointmentStore open(String dataPath, String legacyTextFile,
+                                        GroupCommitWriter.Durability durability, long fsyncIntervalMillis)
+            throws IOException {
+        Path dir = Paths.get(dataPath);
+        AppointmentStore store = new AppointmentStore(dir.resolve("appointments.dat"));
+
+        long walSegment = store.loadRecords();
+        boolean fresh = walSegment == 0;
+        store.wal = WriteAheadLog.open(dir, "appointments", Math.max(1, walSegment),
+                store::replay, durability, fsyncIntervalMillis);
+
+        if (fresh && store.appointments.isEmpty()
+                && legacyTextFile != null && Files.exists(Paths.get(legacyTextFile))) {
+            List<String> skipped = new ArrayList<>();
+            int imported = store.importTextFile(Paths.get(legacyTextFile), skipped);
+            store.checkpoint();
+            System.out.println("✅ Imported " + imported + " appointments from " + legacyTextFile
+                    + (skipped.isEmpty() ? "" : "; skipped " + skipped.size() + " rows it cannot read:"));
+            for (String row : skipped) {
+                System.out.println("   " + row);
+            }
+        }
+        return store;
+    }
+
+    // ===== MUTATIONS =====
+
+    /**
+     * Applies the booking in memory and logs it; completes at the WAL's durability.
+     * epochDay counts days since 1970-01-01, startMinute minutes after midnight.
+     * If the log write fails the booking is marked CANCELLED, so it holds no
+     * slot anywhere, and the future fails.
+     */
+    public synchronized CompletableFuture<Appointment> add(int patientId, int doctorId,
+                                                           int epochDay, int startMinute, int durationMinutes)
+            throws IOException {
+        Appointment appointment = new Appointment(nextId++, patientId, doctorId,
+                epochDay, startMinute, durationMinutes);
+        append(appointment);
+
+        CompletableFuture<Long> logged = wal.append(encode(appointment));
+        countMutation();
+        return onceLogged(logged, appointment, () -> withdraw(appointment));
+    }
+
+    // Undoes a booking whose log write failed
+    private synchronized void withdraw(Appointment appointment) {
+        int position = positionOf(appointment.getId());
+        if (position >= 0) {
+            setStatus(position, Appointment.Status.CANCELLED);
+        }
+    }
+
+    /**
+     * Moves every listed SCHEDULED appointment to the new status with one
+     * in-place byte write each, and logs the whole batch as one WAL record.
+     * Unknown ids and appointments no longer SCHEDULED are skipped.
+     * Completes, at the WAL's durability, with the appointments changed;
+     * if the log write fails they are SCHEDULED again and the future fails.
+     */
+    public synchronized CompletableFuture<List<Appointment>> updateStatus(int[] ids, Appointment.Status status)
+            throws IOException {
+        List<Appointment> changed = new ArrayList<>();
+        ByteBuffer batch = ByteBuffer.allocate(1 + 1 + 4 + ids.length * 4);
+        batch.put(OP_STATUS).put((byte) status.ordinal()).putInt(0);
+
+        for (int id : ids) {
+            int position = positionOf(id);
+            if (position < 0 || appointments.get(position).getStatus() != Appointment.Status.SCHEDULED) {
+                continue;
+            }
+            setStatus(position, status);
+            changed.add(appointments.get(position));
+            batch.putInt(id);
+        }
+        if (changed.isEmpty()) {
+            return CompletableFuture.completedFuture(changed);
+        }
+
+        batch.putInt(2, changed.size()).flip();
+        CompletableFuture<Long> logged = wal.append(batch);
+        countMutation();
+        return onceLogged(logged, changed, () -> reschedule(changed));
+    }
+
+    // Undoes a status change whose log write failed
+    private synchronized void reschedule(List<Appointment> changed) {
+        for (Appointment appointment : changed) {
+            int position = positionOf(appointment.getId());
+            if (position >= 0) {
+                setStatus(position, Appointment.Status.SCHEDULED);
+            }
+        }
+    }
+
+    /**
+     * Moves appointment ids[i] to doctor doctorIds[i] for every i, writing
+     * each record's doctor field in place; the batch is one WAL record, so
+     * after a crash either all of it or none of it is recovered. Callers
+     * check the moves first; unknown ids are skipped. If the log write
+     * fails every appointment goes back to its doctor and the future fails.
+     */
+    public synchronized CompletableFuture<Integer> reassign(int[] ids, int[] doctorIds) throws IOException {
+        ByteBuffer batch = ByteBuffer.allocate(1 + 4 + ids.length * 8);
+        batch.put(OP_REASSIGN).putInt(ids.length);
+        int[] previous = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            int position = positionOf(ids[i]);
+            previous[i] = position < 0 ? -1 : appointments.get(position).getDoctorId();
+            setDoctor(ids[i], doctorIds[i]);
+            batch.putInt(ids[i]).putInt(doctorIds[i]);
+        }
+        batch.flip();
+        CompletableFuture<Long> logged = wal.append(batch);
+        countMutation();
+        return onceLogged(logged, ids.length, () -> restoreDoctors(ids, previous));
+    }
+
+    // Undoes a reassignment whose log write failed
+    private synchronized void restoreDoctors(int[] ids, int[] doctorIds) {
+        for (int i = 0; i < ids.length; i++) {
+            if (doctorIds[i] >= 0) {
+                setDoctor(ids[i], doctorIds[i]);
+            }
+        }
+    }
+
+    // The result once logged. If logging fails the undo runs first, off the
+    // WAL writer thread: a checkpoint may be joining that thread under this lock.
+    private static <T> CompletableFuture<T> onceLogged(CompletableFuture<Long> logged, T result, Runnable undo) {
+        return logged.handle((offset, e) -> e).thenCompose(e -> {
+            if (e == null) {
+                return CompletableFuture.completedFuture(result);
+            }
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            CompletableFuture.runAsync(undo).whenComplete((v, undoError) -> failed.completeExceptionally(e));
+            return failed;
+        });
+    }
+
+    // ===== READS =====
+    public synchronized List<Appointment> all() {
+        return new ArrayList<>(appointments);
+    }
+
+    public synchronized Appointment get(int id) {
+        int position = positionOf(id);
+        return position < 0 ? null : appointments.get(position);
+    }
+
+    /** The patient's appointments in date and time order. */
+    public synchronized List<Appointment> forPatient(int patientId) {
+        TreeSet<Long> keys = byPatient.get(patientId);
+        return keys == null ? new ArrayList<>() : resolve(keys);
+    }
+
+    /** The doctor's appointments from fromDay to toDay inclusive, in date and time order. */
+    public synchronized List<Appointment> forDoctor(int doctorId, int fromDay, int toDay) {
+        TreeSet<Long> keys = byDoctor.get(doctorId);
+        return keys == null || fromDay > toDay ? new ArrayList<>() : resolve(range(keys, fromDay, toDay));
+    }
+
+    /** Every appointment from fromDay to toDay inclusive, in date and time order. */
+    public synchronized List<Appointment> between(int fromDay, int toDay) {
+        return fromDay > toDay ? new ArrayList<>() : resolve(range(calendar, fromDay, toDay));
+    }
+
+    public synchronized int size() {
+        return appointments.size();
+    }
+
+    // ===== CHECKPOINTS =====
+
+    /**
+     * Makes appointments.dat cover every mutation so far and drops the WAL
+     * segments before it. Records are already in place; the WAL roll happens
+     * under the store lock so later mutations land only in segments the
+     * checkpoint does not cover, then the mapping is forced before the
+     * header that points past those segments is written.
+     */
+    public void checkpoint() throws IOException {
+        long walSegment;
+        int idSeed;
+        int count;
+        MappedByteBuffer map;
+        synchronized (this) {
+            walSegment = wal.roll();
+            idSeed = nextId;
+            count = appointments.size();
+            map = mapRecords(count);
+            mutationsSinceCheckpoint = 0;
+        }
+
+        map.force();
+        map.putInt(0, FILE_MAGIC);
+        map.putInt(4, RECORD_BYTES);
+        map.putLong(8, walSegment);
+        map.putInt(16, idSeed);
+        map.putInt(20, count);
+        map.force();
+        wal.deleteBefore(walSegment);
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (IOException e) {
+            System.out.println("⚠ Appointment checkpoint failed: " + e.getMessage());
+        }
+    }
+
+    private void countMutation() {
+        if (++mutationsSinceCheckpoint >= CHECKPOINT_EVERY) {
+            mutationsSinceCheckpoint = 0;
+            checkpointer.execute(this::checkpointQuietly);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        checkpointer.shutdown();
+        wal.close();
+        if (recordMap != null) {
+            recordMap.force();
+        }
+        records.close();
+    }
+
+    // ===== RECORDS =====
+
+    // Maps room for at least count records, growing the file geometrically
+    private MappedByteBuffer mapRecords(int count) throws IOException {
+        long needed = HEADER_BYTES + (long) count * RECORD_BYTES;
+        if (recordMap == null || recordMap.capacity() < needed) {
+            long capacity = Math.max(HEADER_BYTES + 1024L * RECORD_BYTES,
+                    Math.max(needed, recordMap == null ? 0 : 2L * recordMap.capacity()));
+            if (capacity > Integer.MAX_VALUE) {
+                throw new IOException("Appointment file exceeds 2 GB");
+            }
+            recordMap = records.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+        return recordMap;
+    }
+
+    private void writeRecord(int position, Appointment appointment) throws IOException {
+        MappedByteBuffer map = mapRecords(position + 1);
+        int at = HEADER_BYTES + position * RECORD_BYTES;
+        map.putInt(at, appointment.getId());
+        map.putInt(at + 4, appointment.getPatientId());
+        map.putInt(at + 8, appointment.getDoctorId());
+        map.putInt(at + 12, appointment.getEpochDay());
+        map.putShort(at + 16, (short) appointment.getStartMinute());
+        map.putShort(at + 18, (short) appointment.getDurationMinutes());
+        map.put(at + STATUS_OFFSET, (byte) appointment.getStatus().ordinal());
+    }
+
+    private void setDoctor(int id, int doctorId) {
+        int position = positionOf(id);
+        if (position < 0) {
+            return;
+        }
+        Appointment appointment = appointments.get(position);
+        long key = key(appointment.getEpochDay(), appointment.getStartMinute(), id);
+        TreeSet<Long> keys = byDoctor.get(appointment.getDoctorId());
+        if (keys != null) {
+            keys.remove(key);
+        }
+        byDoctor.computeIfAbsent(doctorId, k -> new TreeSet<>()).add(key);
+        appointment.setDoctorId(doctorId);
+        recordMap.putInt(HEADER_BYTES + position * RECORD_BYTES + 8, doctorId);
+    }
+
+    private void setStatus(int position, Appointment.Status status) {
+        appointments.get(position).setStatus(status);
+        recordMap.put(HEADER_BYTES + position * RECORD_BYTES + STATUS_OFFSET, (byte) status.ordinal());
+    }
+
+    // ===== RECOVERY =====
+
+    /** Loads the checkpointed records; returns the first WAL segment to replay (0 if none). */
+    private long loadRecords() throws IOException {
+        if (records.size() < HEADER_BYTES) {
+            return 0;
+        }
+        MappedByteBuffer map = mapRecords(0);
+        if (map.getInt(0) != FILE_MAGIC || map.getInt(4) != RECORD_BYTES) {
+            return 0; // never checkpointed
+        }
+        long walSegment = map.getLong(8);
+        nextId = map.getInt(16);
+        int count = map.getInt(20);
+        map = mapRecords(count);
+
+        for (int position = 0; position < count; position++) {
+            int at = HEADER_BYTES + position * RECORD_BYTES;
+            index(new Appointment(map.getInt(at), map.getInt(at + 4), map.getInt(at + 8), map.getInt(at + 12),
+                    map.getShort(at + 16), map.getShort(at + 18), STATUSES[map.get(at + STATUS_OFFSET)]));
+        }
+        return walSegment;
+    }
+
+    private void replay(ByteBuffer payload) throws IOException {
+        if (payload.get(0) == OP_STATUS) {
+            payload.get();
+            Appointment.Status status = STATUSES[payload.get()];
+            int count = payload.getInt();
+            for (int i = 0; i < count; i++) {
+                int position = positionOf(payload.getInt());
+                if (position >= 0) {
+                    setStatus(position, status);
+                }
+            }
+            return;
+        }
+        if (payload.get(0) == OP_REASSIGN) {
+            payload.get();
+            int count = payload.getInt();
+            for (int i = 0; i < count; i++) {
+                setDoctor(payload.getInt(), payload.getInt());
+            }
+            return;
+        }
+
+        Appointment appointment = decode(payload);
+        if (positionOf(appointment.getId()) < 0) {
+            append(appointment);
+            nextId = Math.max(nextId, appointment.getId() + 1);
+        }
+    }
+
+    // Imports the rows it can read; adds "line n: text" to skipped for every other non-blank row
+    private int importTextFile(Path textFile, List<String> skipped) throws IOException {
+        int imported = 0;
+        int line = 0;
+        CompletableFuture<Appointment> last = CompletableFuture.completedFuture(null);
+        int[] bounds = new int[12];
+        try (CsvCodec.LineReader reader = new CsvCodec.LineReader(Files.newInputStream(textFile), 1 << 16)) {
+            byte[] block;
+            while ((block = reader.nextBlock(1 << 16)) != null) {
+                for (int pos = 0; pos < block.length; ) {
+                    int eol = CsvCodec.lineEnd(block, pos, block.length);
+                    int to = eol > pos && block[eol - 1] == '\r' ? eol - 1 : eol;
+                    int from = pos;
+                    int fields = CsvCodec.scan(block, pos, to, bounds);
+                    pos = eol + 1;
+                    line++;
+                    if (CsvCodec.isBlank(block, from, to)) {
+                        continue;
+                    }
+
+                    int first = fields >= 6 ? 2 : 0; // C++ rows lead with an appointment id
+                    int patientId = fields < first / 2 + 4 ? CsvCodec.INVALID
+                            : CsvCodec.parseInt(block, bounds[first], bounds[first + 1]);
+                    int doctorId = fields < first / 2 + 4 ? CsvCodec.INVALID
+                            : CsvCodec.parseInt(block, bounds[first + 2], bounds[first + 3]);
+                    if (patientId == CsvCodec.INVALID || doctorId == CsvCodec.INVALID) {
+                        skipped.add("line " + line + ": " + CsvCodec.string(block, from, to));
+                        continue;
+                    }
+                    try {
+                        String date = CsvCodec.string(block, bounds[first + 4], bounds[first + 5]);
+                        String time = CsvCodec.string(block, bounds[first + 6], bounds[first + 7]);
+                        last = add(patientId, doctorId, SlotAvailability.epochDay(date),
+                                SlotAvailability.startMinute(time), SlotAvailability.durationMinutes(time));
+                        imported++;
+                    } catch (IllegalArgumentException e) {
+                        skipped.add("line " + line + ": " + CsvCodec.string(block, from, to)
+                                + " (" + e.getMessage() + ")");
+                    }
+                }
+            }
+        }
+        last.join();
+        return imported;
+    }
+
+    // ===== INDEXES =====
+
+    // Adds a new appointment at the end of the record order and writes its record
+    private void append(Appointment appointment) throws IOException {
+        writeRecord(appointments.size(), appointment);
+        index(appointment);
+    }
+
+    private void index(Appointment appointment) {
+        appointments.add(appointment);
+        long key = key(appointment.getEpochDay(), appointment.getStartMinute(), appointment.getId());
+        byPatient.computeIfAbsent(appointment.getPatientId(), k -> new TreeSet<>()).add(key);
+        byDoctor.computeIfAbsent(appointment.getDoctorId(), k -> new TreeSet<>()).add(key);
+        calendar.add(key);
+    }
+
+    // Position of the id in record order, or -1
+    private int positionOf(int id) {
+        // ids are handed out in ascending order, usually densely from 1
+        if (id >= 1 && id <= appointments.size() && appointments.get(id - 1).getId() == id) {
+            return id - 1;
+        }
+        int low = 0;
+        int high = appointments.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = appointments.get(mid).getId();
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private static long key(int epochDay, int minute, int id) {
+        return ((long) (epochDay + DAY_BIAS) << 42) | ((long) minute << 31) | id;
+    }
+
+    // Keys of days [fromDay, toDay]
+    private static NavigableSet<Long> range(TreeSet<Long> keys, int fromDay, int toDay) {
+        return keys.subSet(key(fromDay, 0, 0), true, key(toDay + 1, 0, 0), false);
+    }
+
+    private List<Appointment> resolve(Collection<Long> keys) {
+        List<Appointment> result = new ArrayList<>(keys.size());
+        for (long key : keys) {
+            result.add(appointments.get(positionOf((int) (key & Integer.MAX_VALUE))));
+        }
+        return result;
+    }
+
+    // ===== ENCODING =====
+    private static ByteBuffer encode(Appointment appointment) {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 12 + 4 + 2 + 2);
+        buffer.put(OP_ADD);
+        buffer.putInt(appointment.getId());
+        buffer.putInt(appointment.getPatientId());
+        buffer.putInt(appointment.getDoctorId());
+        buffer.putInt(appointment.getEpochDay());
+        buffer.putShort((short) appointment.getStartMinute());
+        buffer.putShort((short) appointment.getDurationMinutes());
+        buffer.flip();
+        return buffer;
+    }
+
+    private static Appointment decode(ByteBuffer buffer) {
+        byte op = buffer.get();
+        if (op != OP_ADD) {
+            throw new IllegalStateException("Unknown appointment op " + op);
+        }
+        return new Appointment(buffer.getInt(), buffer.getInt(), buffer.getInt(),
+                buffer.getInt(), buffer.getShort(), buffer.getShort());
+    }
+}
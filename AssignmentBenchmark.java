@@ -0,0 +1,129 @@
+package Service;
+
+import model.Doctor;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Least-loaded assignment latency as a specialization grows from 10 to
+ * 10,000 doctors.
+ *
+ * Two measurements per doctor count:
+ * - claim: DoctorLoadHeap.claim alone, single-threaded, mean ns per claim;
+ *   it should grow only with log n.
+ * - assign: assignAppointment through the service from many threads,
+ *   including the slot check and the appointment write, as p50 and p99.
+ *   The times are spread so that every assignment finds a free doctor.
+ * The load spread is the lowest and highest load afterwards; a doctor
+ * whose slot a concurrent assignment just took is passed over, so it can
+ * be a little wider than one.
+ *
+ * Runs against a fresh DataFiles folder in a temporary directory:
+ *   javac -d out *.java && java -cp out Service.AssignmentBenchmark [threads] [assignments]
+ */
+public class AssignmentBenchmark {
+
+    private static final int[] DOCTOR_COUNTS = {10, 100, 1_000, 10_000};
+    private static final int TIMES_PER_DAY = 24; // 09:00-12:00 and 14:00-17:00 in 15-minute slots
+    private static final int CLAIMS = 1_000_000;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int assignments = args.length > 1 ? Integer.parseInt(args[1]) : 16_000;
+
+        File dir = Files.createTempDirectory("assignment-benchmark").toFile();
+        System.setProperty("user.dir", dir.getAbsolutePath());
+
+        int firstPatient = CppIntegrationService.reservePatientIds(assignments);
+        List<CompletableFuture<String>> added = new ArrayList<>();
+        for (int i = 0; i < assignments; i++) {
+            added.add(CppIntegrationService.addPatientAsync(firstPatient + i, "Patient " + i, 40, "Flu",
+                    String.format("0300%07d", i)));
+        }
+        for (CompletableFuture<String> result : added) {
+            if (!result.join().startsWith("SUCCESS")) {
+                throw new IllegalStateException(result.join());
+            }
+        }
+
+        System.out.printf("%8s %12s %10s %10s %12s%n", "doctors", "claim ns", "assign p50", "p99", "load spread");
+        int firstDay = SlotAvailability.epochDay("2040-01-01");
+        for (int doctors : DOCTOR_COUNTS) {
+            double claimNanos = claimNanos(doctors);
+            String specialization = "Benchmark " + doctors;
+            for (int i = 0; i < doctors; i++) {
+                CppIntegrationService.addDoctor("Doctor " + i, specialization, 0);
+            }
+            long[] latencies = assign(specialization, doctors, firstDay, firstPatient, assignments, threads);
+            firstDay += 1000; // each run gets its own days, so patients are never busy
+
+            int min = Integer.MAX_VALUE;
+            int max = 0;
+            for (Doctor doctor : CppIntegrationService.getDoctorsBySpecialization(specialization)) {
+                min = Math.min(min, doctor.getAppointmentCount());
+                max = Math.max(max, doctor.getAppointmentCount());
+            }
+            System.out.printf("%8d %12.0f %8d us %7d us %8d-%d%n", doctors, claimNanos,
+                    latencies[latencies.length / 2] / 1000, latencies[latencies.length * 99 / 100] / 1000, min, max);
+        }
+        System.exit(0);
+    }
+
+    // Mean cost of one claim on a heap of the given size, after a warmup round
+    private static double claimNanos(int doctors) {
+        DoctorLoadHeap heap = new DoctorLoadHeap();
+        for (int i = 0; i < doctors; i++) {
+            heap.add(new DoctorRegistry.Entry(i + 1, "Doctor " + i, 0, 0));
+        }
+        long elapsed = 0;
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < CLAIMS; i++) {
+                heap.claim(entry -> true);
+            }
+            elapsed = System.nanoTime() - start;
+        }
+        return (double) elapsed / CLAIMS;
+    }
+
+    // Latencies of the assignments in ascending order; each one must succeed
+    private static long[] assign(String specialization, int doctors, int firstDay, int firstPatient,
+                                 int assignments, int threads) throws Exception {
+        long[] latencies = new long[assignments];
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> done = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            done.add(pool.submit(() -> {
+                for (int i = thread; i < assignments; i += threads) {
+                    // Exactly `doctors` assignments share each day and time
+                    int time = i % TIMES_PER_DAY;
+                    int day = firstDay + i / (TIMES_PER_DAY * doctors);
+                    long start = System.nanoTime();
+                    String result = CppIntegrationService.assignAppointment(firstPatient + i, specialization,
+                            LocalDate.ofEpochDay(day).toString(), time(time));
+                    latencies[i] = System.nanoTime() - start;
+                    if (!result.startsWith("SUCCESS")) {
+                        throw new IllegalStateException(result);
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : done) {
+            future.get();
+        }
+        pool.shutdown();
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static String time(int index) {
+        int minute = (index < TIMES_PER_DAY / 2 ? 9 * 60 : 14 * 60 - TIMES_PER_DAY / 2 * 15) + index * 15;
+        return String.format("%02d:%02d", minute / 60, minute % 60);
+    }
+}
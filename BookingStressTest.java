@@ -0,0 +1,159 @@
+package Service;
+
+import model.Appointment;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Multi-threaded double-booking check for the booking path.
+ *
+ * Many threads book random overlapping time ranges for a few doctors and
+ * patients, and cancel some of their bookings again. Afterwards no doctor
+ * and no patient may hold two SCHEDULED appointments that overlap, and the
+ * store must hold exactly the bookings that were reported as made and not
+ * cancelled. There are enough doctor-days and patient-days that every
+ * slot-bitmap shard grows its table several times while bookings race.
+ *
+ * Runs against a fresh DataFiles folder in a temporary directory:
+ *   javac -d out *.java && java -cp out Service.BookingStressTest [threads] [bookings]
+ * Prints PASS or the violations found, and exits non-zero on failure.
+ */
+public class BookingStressTest {
+
+    private static final int DOCTORS = 40;
+    private static final int PATIENTS = 200;
+    private static final int DAYS = 28;
+    private static final int SLOTS = 12; // 09:00-12:00 in 15-minute slots
+    private static final int CANCEL_PERCENT = 10;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int bookings = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+
+        File dir = Files.createTempDirectory("booking-stress").toFile();
+        System.setProperty("user.dir", dir.getAbsolutePath());
+
+        int[] doctorIds = new int[DOCTORS];
+        for (int i = 0; i < DOCTORS; i++) {
+            String result = CppIntegrationService.addDoctor("Stress " + i, "General", 0);
+            if (!result.startsWith("SUCCESS")) {
+                throw new IllegalStateException(result);
+            }
+            doctorIds[i] = Integer.parseInt(result.replaceAll("\\D", ""));
+        }
+        int firstPatient = CppIntegrationService.reservePatientIds(PATIENTS);
+        for (int i = 0; i < PATIENTS; i++) {
+            String result = CppIntegrationService.addPatient(firstPatient + i, "Stress " + i, 30, "Flu",
+                    String.format("0300%07d", i));
+            if (!result.startsWith("SUCCESS")) {
+                throw new IllegalStateException(result);
+            }
+        }
+
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger cancelled = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> done = new ArrayList<>();
+        long started = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int share = bookings / threads + (t < bookings % threads ? 1 : 0);
+            done.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < share; i++) {
+                    int patientId = firstPatient + random.nextInt(PATIENTS);
+                    int doctorId = doctorIds[random.nextInt(DOCTORS)];
+                    int slot = random.nextInt(SLOTS);
+                    int length = 1 + random.nextInt(Math.min(3, SLOTS - slot));
+                    String date = String.format("2027-02-%02d", 1 + random.nextInt(DAYS));
+                    String result = CppIntegrationService.scheduleAppointment(patientId, doctorId, date,
+                            time(slot) + "-" + time(slot + length));
+                    if (!result.startsWith("SUCCESS")) {
+                        continue;
+                    }
+                    booked.incrementAndGet();
+                    if (random.nextInt(100) < CANCEL_PERCENT) {
+                        cancelLatest(patientId, doctorId, cancelled);
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : done) {
+            future.get();
+        }
+        pool.shutdown();
+        long millis = (System.nanoTime() - started) / 1_000_000;
+
+        List<String> violations = new ArrayList<>();
+        List<Appointment> scheduled = new ArrayList<>();
+        for (Appointment appointment : CppIntegrationService.getAllAppointments()) {
+            if (appointment.getStatus() == Appointment.Status.SCHEDULED) {
+                scheduled.add(appointment);
+            }
+        }
+        if (scheduled.size() != booked.get() - cancelled.get()) {
+            violations.add(scheduled.size() + " scheduled in the store, but " + booked + " booked and "
+                    + cancelled + " cancelled");
+        }
+        findOverlaps(scheduled, true, violations);
+        findOverlaps(scheduled, false, violations);
+
+        System.out.println(threads + " threads, " + bookings + " attempts: " + booked + " booked, "
+                + cancelled + " cancelled in " + millis + " ms");
+        if (violations.isEmpty()) {
+            System.out.println("PASS");
+            System.exit(0);
+        }
+        for (String violation : violations.subList(0, Math.min(20, violations.size()))) {
+            System.out.println("  " + violation);
+        }
+        System.out.println("FAIL: " + violations.size() + " violation(s)");
+        System.exit(1);
+    }
+
+    // Cancels the patient's most recently made appointment with the doctor
+    private static void cancelLatest(int patientId, int doctorId, AtomicInteger cancelled) {
+        List<Appointment> all = CppIntegrationService.getAllAppointments();
+        for (int i = all.size() - 1; i >= 0; i--) {
+            Appointment appointment = all.get(i);
+            if (appointment.getPatientId() == patientId && appointment.getDoctorId() == doctorId
+                    && appointment.getStatus() == Appointment.Status.SCHEDULED) {
+                if (CppIntegrationService.cancelAppointment(appointment.getId()).startsWith("SUCCESS")) {
+                    cancelled.incrementAndGet();
+                }
+                return;
+            }
+        }
+    }
+
+    // Records every pair of one owner's appointments on a day whose times overlap
+    private static void findOverlaps(List<Appointment> scheduled, boolean byDoctor, List<String> violations) {
+        Map<Long, List<Appointment>> byOwnerDay = new HashMap<>();
+        for (Appointment appointment : scheduled) {
+            int owner = byDoctor ? appointment.getDoctorId() : appointment.getPatientId();
+            long key = ((long) owner << 32) | appointment.getEpochDay();
+            byOwnerDay.computeIfAbsent(key, k -> new ArrayList<>()).add(appointment);
+        }
+        for (List<Appointment> day : byOwnerDay.values()) {
+            day.sort(Comparator.comparingInt(Appointment::getStartMinute));
+            for (int i = 1; i < day.size(); i++) {
+                Appointment before = day.get(i - 1);
+                Appointment after = day.get(i);
+                if (after.getStartMinute() < before.getStartMinute() + before.getDurationMinutes()) {
+                    violations.add((byDoctor ? "Doctor " : "Patient ")
+                            + (byDoctor ? after.getDoctorId() : after.getPatientId())
+                            + " double-booked: appointments " + before.getId() + " and " + after.getId());
+                }
+            }
+        }
+    }
+
+    private static String time(int slot) {
+        int minute = 9 * 60 + slot * SlotAvailability.SLOT_MINUTES;
+        return String.format("%02d:%02d", minute / 60, minute % 60);
+    }
+}
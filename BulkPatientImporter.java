@@ -0,0 +1,214 @@
+package Service;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Streaming CSV import for large patient files.
+ *
+ * The file is read as raw bytes in blocks of whole lines (about
+ * CHUNK_BYTES each). Blocks are parsed with CsvCodec and validated in
+ * parallel on a fork-join pool, then written in file order:
+ * each chunk reserves one block of ids and goes to the patient log as a
+ * single batch. Only a bounded window of chunks is held in memory.
+ *
+ * Expected columns: id,name,age,disease,phone with a header row.
+ * The id column is ignored; new ids come from the id block source.
+ */
+public class BulkPatientImporter {
+
+    private static final int CHUNK_BYTES = 256 * 1024;
+    private static final int INITIAL_CHUNK_ROWS = 4096;
+
+    /** Receives progress after every written chunk. */
+    public interface ProgressListener {
+        void onProgress(long rowsRead, long imported, long rejected);
+    }
+
+    /** A row that was not imported. */
+    public static class Reject {
+        public final long lineNumber;
+        public final String line;
+        public final String reason;
+
+        Reject(long lineNumber, String line, String reason) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.reason = reason;
+        }
+
+        @Override
+        public String toString() {
+            return "Line " + lineNumber + ": " + reason;
+        }
+    }
+
+    public static class Result {
+        public final long imported;
+        public final List<Reject> rejects;
+
+        Result(long imported, List<Reject> rejects) {
+            this.imported = imported;
+            this.rejects = rejects;
+        }
+    }
+
+    // Parsed rows of one block, column-wise. Reject line numbers are
+    // relative to the block until the block is written.
+    private static class Chunk {
+        final byte[] bytes;
+        final int from;
+        int lines;
+        int valid;
+        // Line number (relative to the block) and byte bounds of each valid row, for late rejects
+        int[] lineNumbers = new int[INITIAL_CHUNK_ROWS];
+        long[] lineBounds = new long[INITIAL_CHUNK_ROWS];
+        String[] names = new String[INITIAL_CHUNK_ROWS];
+        int[] ages = new int[INITIAL_CHUNK_ROWS];
+        String[] diseases = new String[INITIAL_CHUNK_ROWS];
+        String[] phones = new String[INITIAL_CHUNK_ROWS];
+        final List<Reject> rejects = new ArrayList<>();
+
+        Chunk(byte[] bytes, int from) {
+            this.bytes = bytes;
+            this.from = from;
+        }
+    }
+
+    private final ForkJoinPool pool;
+
+    public BulkPatientImporter(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Imports the file. idBlocks receives a row count and returns the first
+     * id of a reserved block of that size.
+     */
+    public Result importCsv(Path csv, IntUnaryOperator idBlocks, ProgressListener listener) throws IOException {
+        int window = Math.max(2, pool.getParallelism() * 2);
+        Deque<ForkJoinTask<Chunk>> inFlight = new ArrayDeque<>();
+        List<Reject> rejects = new ArrayList<>();
+        long[] totals = new long[3]; // rows read, imported, rejected
+        CompletableFuture<Long> lastWrite = CompletableFuture.completedFuture(0L);
+
+        try (CsvCodec.LineReader reader = new CsvCodec.LineReader(Files.newInputStream(csv), CHUNK_BYTES * 2)) {
+            byte[] block;
+            boolean header = true;
+
+            while ((block = reader.nextBlock(CHUNK_BYTES)) != null) {
+                int from = 0;
+                if (header) {
+                    from = Math.min(block.length, CsvCodec.lineEnd(block, 0, block.length) + 1);
+                    header = false;
+                }
+                Chunk chunk = new Chunk(block, from);
+                inFlight.add(pool.submit(() -> parse(chunk)));
+                if (inFlight.size() >= window) {
+                    lastWrite = write(inFlight.poll().join(), idBlocks, rejects, totals, listener);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                lastWrite = write(inFlight.poll().join(), idBlocks, rejects, totals, listener);
+            }
+        }
+
+        lastWrite.join();
+        return new Result(totals[1], rejects);
+    }
+
+    // ===== PARSING (pool threads) =====
+    private static Chunk parse(Chunk chunk) {
+        byte[] bytes = chunk.bytes;
+        int[] bounds = new int[10];
+
+        for (int pos = chunk.from; pos < bytes.length; chunk.lines++) {
+            int eol = CsvCodec.lineEnd(bytes, pos, bytes.length);
+            int lineStart = pos;
+            int lineEnd = eol > pos && bytes[eol - 1] == '\r' ? eol - 1 : eol;
+            pos = eol + 1;
+            if (CsvCodec.isBlank(bytes, lineStart, lineEnd)) {
+                continue;
+            }
+
+            // Skip the id column, then read name, age, disease, phone
+            if (CsvCodec.scan(bytes, lineStart, lineEnd, bounds) < 5) {
+                reject(chunk, lineStart, lineEnd, "expected 5 columns");
+                continue;
+            }
+            int age = CsvCodec.parseInt(bytes, bounds[4], bounds[5]);
+            String name = CsvCodec.string(bytes, bounds[2], bounds[3]);
+            String phone = CsvCodec.string(bytes, bounds[8], bounds[9]);
+
+            String error = CppIntegrationService.validatePatient(name, age, phone);
+            if (error != null) {
+                reject(chunk, lineStart, lineEnd, error);
+                continue;
+            }
+
+            int row = chunk.valid++;
+            if (row == chunk.names.length) {
+                int capacity = row * 2;
+                chunk.lineNumbers = Arrays.copyOf(chunk.lineNumbers, capacity);
+                chunk.lineBounds = Arrays.copyOf(chunk.lineBounds, capacity);
+                chunk.names = Arrays.copyOf(chunk.names, capacity);
+                chunk.ages = Arrays.copyOf(chunk.ages, capacity);
+                chunk.diseases = Arrays.copyOf(chunk.diseases, capacity);
+                chunk.phones = Arrays.copyOf(chunk.phones, capacity);
+            }
+            chunk.lineNumbers[row] = chunk.lines;
+            chunk.lineBounds[row] = (long) lineStart << 32 | lineEnd;
+            chunk.names[row] = name;
+            chunk.ages[row] = age;
+            chunk.diseases[row] = CsvCodec.string(bytes, bounds[6], bounds[7]);
+            chunk.phones[row] = phone;
+        }
+        return chunk;
+    }
+
+    // Only rejected lines are turned back into Strings
+    private static void reject(Chunk chunk, int lineStart, int lineEnd, String reason) {
+        chunk.rejects.add(new Reject(chunk.lines, CsvCodec.string(chunk.bytes, lineStart, lineEnd), reason));
+    }
+
+    // ===== WRITING (importing thread, file order) =====
+    private CompletableFuture<Long> write(Chunk chunk, IntUnaryOperator idBlocks, List<Reject> rejects,
+                                          long[] totals, ProgressListener listener) {
+        CompletableFuture<Long> written = CompletableFuture.completedFuture(0L);
+        long firstLine = totals[0] + 2; // 1-based, after the header
+        int accepted = chunk.valid;
+        List<Reject> chunkRejects = new ArrayList<>(chunk.rejects);
+        if (chunk.valid > 0) {
+            int firstId = idBlocks.applyAsInt(chunk.valid);
+            int[] ids = new int[chunk.valid];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = firstId + i;
+            }
+            int[] dropped = new int[1];
+            written = CppIntegrationService.appendPatientBatch(ids, chunk.names, chunk.ages,
+                    chunk.diseases, chunk.phones, chunk.valid, row -> {
+                        dropped[0]++;
+                        long bounds = chunk.lineBounds[row];
+                        chunkRejects.add(new Reject(chunk.lineNumbers[row],
+                                CsvCodec.string(chunk.bytes, (int) (bounds >>> 32), (int) bounds),
+                                "Patient with ID " + ids[row] + " already exists"));
+                    });
+            accepted -= dropped[0];
+            chunkRejects.sort(Comparator.comparingLong(reject -> reject.lineNumber));
+        }
+
+        for (Reject reject : chunkRejects) {
+            rejects.add(new Reject(firstLine + reject.lineNumber, reject.line, reject.reason));
+        }
+        totals[0] += chunk.lines;
+        totals[1] += accepted;
+        totals[2] += chunkRejects.size();
+        if (listener != null) {
+            listener.onProgress(totals[0], totals[1], totals[2]);
+        }
+        return written;
+    }
+}
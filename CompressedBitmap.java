@@ -0,0 +1,365 @@
+package Service;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of int ids, split like a roaring bitmap: ids sharing
+ * their high 16 bits go into one container, kept as a sorted char array
+ * while it holds up to 4096 values and as a 1024-word bitmap beyond that.
+ * Sparse groups cost two bytes per id and dense groups one bit per
+ * possible id; and/or work container by container and skip every high
+ * key only one side has.
+ *
+ * Not thread-safe; owners guard their bitmaps and hand out copies.
+ */
+class CompressedBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1 << 10;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+
+    // ===== UPDATES =====
+
+    void add(int id) {
+        char key = (char) (id >>> 16);
+        int i = indexOf(key);
+        if (i < 0) {
+            i = -i - 1;
+            insertAt(i, key, new ArrayContainer());
+        }
+        containers[i] = containers[i].add((char) id);
+    }
+
+    void clear() {
+        keys = new char[4];
+        containers = new Container[4];
+        size = 0;
+    }
+
+    // ===== QUERIES =====
+
+    boolean contains(int id) {
+        int i = indexOf((char) (id >>> 16));
+        return i >= 0 && containers[i].contains((char) id);
+    }
+
+    int cardinality() {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += containers[i].cardinality();
+        }
+        return total;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Calls the action with every id, in unsigned order. */
+    void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    int[] toArray() {
+        int[] ids = new int[cardinality()];
+        int[] next = {0};
+        forEach(id -> ids[next[0]++] = id);
+        return ids;
+    }
+
+    CompressedBitmap copy() {
+        CompressedBitmap copy = new CompressedBitmap();
+        copy.keys = Arrays.copyOf(keys, Math.max(size, 4));
+        copy.containers = new Container[copy.keys.length];
+        for (int i = 0; i < size; i++) {
+            copy.containers[i] = containers[i].copy();
+        }
+        copy.size = size;
+        return copy;
+    }
+
+    // ===== SET OPERATIONS =====
+
+    /** Ids in both bitmaps, as a new bitmap. */
+    CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container both = containers[i].and(other.containers[j]);
+                if (both.cardinality() > 0) {
+                    result.insertAt(result.size, keys[i], both);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /** Ids in either bitmap, as a new bitmap. */
+    CompressedBitmap or(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                result.insertAt(result.size, keys[i], containers[i++].copy());
+            } else if (i == size || keys[i] > other.keys[j]) {
+                result.insertAt(result.size, other.keys[j], other.containers[j++].copy());
+            } else {
+                result.insertAt(result.size, keys[i], containers[i++].or(other.containers[j++]));
+            }
+        }
+        return result;
+    }
+
+    // ===== INTERNALS =====
+    private int indexOf(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertAt(int i, char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        keys[i] = key;
+        containers[i] = container;
+        size++;
+    }
+
+    /** The low 16 bits of the ids under one high key. */
+    private abstract static class Container {
+        /** Adds the value; returns this or the container that replaced it. */
+        abstract Container add(char value);
+        abstract boolean contains(char value);
+        abstract int cardinality();
+        abstract void forEach(int high, IntConsumer action);
+        abstract Container copy();
+        abstract Container and(Container other);
+        abstract Container or(Container other);
+    }
+
+    private static final class ArrayContainer extends Container {
+        char[] values;
+        int cardinality;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            int i = Arrays.binarySearch(values, 0, cardinality, value);
+            if (i >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_MAX) {
+                return toBitmap().add(value);
+            }
+            i = -i - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, Math.max(4, cardinality * 2)));
+            }
+            System.arraycopy(values, i, values, i + 1, cardinality - i);
+            values[i] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < cardinality; i++) {
+                action.accept(high | values[i]);
+            }
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(cardinality, 4)), cardinality);
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] out = new char[cardinality];
+            int n = 0;
+            if (other instanceof BitmapContainer) {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) {
+                        out[n++] = values[i];
+                    }
+                }
+            } else {
+                ArrayContainer that = (ArrayContainer) other;
+                for (int i = 0, j = 0; i < cardinality && j < that.cardinality; ) {
+                    if (values[i] < that.values[j]) {
+                        i++;
+                    } else if (values[i] > that.values[j]) {
+                        j++;
+                    } else {
+                        out[n++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            }
+            return new ArrayContainer(out, n);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            ArrayContainer that = (ArrayContainer) other;
+            if (cardinality + that.cardinality > ARRAY_MAX) {
+                return toBitmap().or(that);
+            }
+            char[] out = new char[Math.max(cardinality + that.cardinality, 4)];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality || j < that.cardinality) {
+                if (j == that.cardinality || (i < cardinality && values[i] < that.values[j])) {
+                    out[n++] = values[i++];
+                } else if (i == cardinality || values[i] > that.values[j]) {
+                    out[n++] = that.values[j++];
+                } else {
+                    out[n++] = values[i++];
+                    j++;
+                }
+            }
+            return new ArrayContainer(out, n);
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        final long[] words;
+        int cardinality;
+
+        BitmapContainer() {
+            this(new long[BITMAP_WORDS], 0);
+        }
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) == 0) {
+                words[value >>> 6] |= bit;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    action.accept(high | (w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] those = ((BitmapContainer) other).words;
+            long[] out = new long[BITMAP_WORDS];
+            int count = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                out[w] = words[w] & those[w];
+                count += Long.bitCount(out[w]);
+            }
+            BitmapContainer result = new BitmapContainer(out, count);
+            return count > ARRAY_MAX ? result : result.toArray();
+        }
+
+        @Override
+        Container or(Container other) {
+            BitmapContainer result = (BitmapContainer) copy();
+            if (other instanceof ArrayContainer) {
+                ArrayContainer that = (ArrayContainer) other;
+                for (int i = 0; i < that.cardinality; i++) {
+                    result.add(that.values[i]);
+                }
+                return result;
+            }
+            long[] those = ((BitmapContainer) other).words;
+            int count = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                result.words[w] |= those[w];
+                count += Long.bitCount(result.words[w]);
+            }
+            result.cardinality = count;
+            return result;
+        }
+
+        private ArrayContainer toArray() {
+            char[] values = new char[Math.max(cardinality, 4)];
+            int[] n = {0};
+            forEach(0, id -> values[n[0]++] = (char) id);
+            return new ArrayContainer(values, cardinality);
+        }
+    }
+}
@@ -1,8 +1,20 @@
 package Service;
 
+import model.Appointment;
+import model.Doctor;
+import model.PatientTable;
+
 import java.io.*;
 import java.nio.file.*;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ToIntFunction;
 
 /**
  * Pure Java Backend - No C++ Dependencies
@@ -12,6 +24,58 @@ public class CppIntegrationService {
 
     private static final String DATA_PATH = getDataPath();
     private static final String PATIENTS_FILE = DATA_PATH + "patients_data.txt";
+    private static final String APPOINTMENTS_FILE = DATA_PATH + "appointments.txt";
+
+    // Durability for group-committed writes: -Dmedico.durability=fsync|fsync-interval|buffered
+    private static final GroupCommitWriter.Durability DURABILITY = GroupCommitWriter.Durability.fromSystemProperty();
+    private static final long FSYNC_INTERVAL_MS = Long.getLong("medico.fsyncIntervalMs", 50);
+
+    // Binary patient store; the text file is only read once for import
+    private static final PatientLog PATIENT_LOG = openPatientLog();
+
+    // Columnar in-memory copy of every patient, loaded once from the log
+    private static final PatientTable PATIENT_TABLE = loadPatientTable();
+
+    // Triage level of every patient, classified at ingest from a reloadable keyword dictionary
+    private static final PatientTriage TRIAGE = openTriage();
+
+    // Patient ids per disease, as compressed bitmaps
+    private static final DiseaseIndex DISEASE_INDEX = DiseaseIndex.build(PATIENT_TABLE);
+
+    // Word prefixes and trigrams of patient names, for search-as-you-type and typo-tolerant search
+    private static final NameIndex NAME_INDEX = buildNameIndex();
+    private static final int FUZZY_MAX_EDITS = Integer.getInteger("medico.fuzzyMaxEdits", 3);
+
+    // Patient rows by phone number, for identifying callers
+    private static final PhoneIndex PHONE_INDEX = PhoneIndex.build(PATIENT_TABLE);
+
+    // Patients waiting to be seen, most urgent triage level first
+    private static final TriageQueue WAITING_ROOM = new TriageQueue();
+
+    // Patient id high-water mark, recovered from the stored ids
+    private static final PatientIdAllocator PATIENT_IDS = openPatientIdAllocator();
+
+    // Ids of patients being logged; they become visible only once the log write succeeds
+    private static final Set<Integer> PENDING_PATIENT_IDS = ConcurrentHashMap.newKeySet();
+
+    // Appointment snapshot + write-ahead log; appointments.txt is only read once for import
+    private static final AppointmentStore APPOINTMENT_STORE = openAppointmentStore();
+
+    // Registered doctors with live open-appointment counters
+    private static final DoctorRegistry DOCTORS = openDoctorRegistry();
+
+    // Running patient and appointment totals for the dashboard and analytics screens
+    private static final AnalyticsCounters ANALYTICS = openAnalytics();
+
+    // Booked-slot bitmaps per doctor and per patient day, rebuilt from the stored appointments
+    private static final SlotAvailability AVAILABILITY = loadAvailability(Appointment::getDoctorId);
+    private static final SlotAvailability PATIENT_SCHEDULE = loadAvailability(Appointment::getPatientId);
+
+    // A booking holds its doctor's and its patient's stripe while it checks and reserves
+    private static final StripedLocks BOOKING_LOCKS = new StripedLocks(64);
+
+    private static final String SLOT_TAKEN = "Time slot not available";
+    private static final String PATIENT_BUSY = "Patient already has an appointment at that time";
 
     // ===== PATH DETECTION =====
     private static String getDataPath() {
@@ -28,81 +92,297 @@ public class CppIntegrationService {
         }
     }
 
-    // ===== PATIENT OPERATIONS =====
-    public static String addPatient(int id, String name, int age, String disease, String phone) {
+    // ===== PATIENT STORE =====
+    private static PatientLog openPatientLog() {
         try {
             ensureDataFolderExists();
-            
-            // Validate input
-            if (name == null || name.trim().isEmpty()) {
-                return "ERROR: Patient name cannot be empty";
+            return PatientLog.open(DATA_PATH, PATIENTS_FILE, DURABILITY, FSYNC_INTERVAL_MS);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open patient store in " + DATA_PATH, e);
+        }
+    }
+
+    private static PatientTable loadPatientTable() {
+        try {
+            PatientTable table = new PatientTable(PATIENT_LOG.size());
+            PATIENT_LOG.loadInto(table);
+            return table;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load patients from " + DATA_PATH, e);
+        }
+    }
+
+    private static PatientTriage openTriage() {
+        try {
+            return PatientTriage.open(PATIENT_TABLE, Paths.get(DATA_PATH, "triage_keywords.txt"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load triage dictionary in " + DATA_PATH, e);
+        }
+    }
+
+    private static PatientIdAllocator openPatientIdAllocator() {
+        int highest = 0;
+        for (int row = 0, rows = PATIENT_TABLE.size(); row < rows; row++) {
+            highest = Math.max(highest, PATIENT_TABLE.id(row));
+        }
+        try {
+            return new PatientIdAllocator(Paths.get(DATA_PATH, "patients.hwm"), highest);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read patient id mark in " + DATA_PATH, e);
+        }
+    }
+
+    private static AppointmentStore openAppointmentStore() {
+        try {
+            return AppointmentStore.open(DATA_PATH, APPOINTMENTS_FILE, DURABILITY, FSYNC_INTERVAL_MS);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open appointment store in " + DATA_PATH, e);
+        }
+    }
+
+    private static DoctorRegistry openDoctorRegistry() {
+        try {
+            DoctorRegistry registry = DoctorRegistry.open(Paths.get(DATA_PATH, "doctors.txt"));
+            for (Appointment appointment : APPOINTMENT_STORE.all()) {
+                registry.addPlaceholder(appointment.getDoctorId());
+                if (appointment.getStatus() == Appointment.Status.SCHEDULED) {
+                    registry.adjustLoad(appointment.getDoctorId(), 1);
+                }
             }
-            if (age < 1 || age > 119) {
-                return "ERROR: Age must be between 1 and 119";
+            return registry;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open doctor registry in " + DATA_PATH, e);
+        }
+    }
+
+    private static NameIndex buildNameIndex() {
+        NameIndex index = new NameIndex();
+        for (int row = 0, rows = PATIENT_TABLE.size(); row < rows; row++) {
+            index.add(PATIENT_TABLE.id(row), PATIENT_TABLE.name(row));
+        }
+        return index;
+    }
+
+    private static AnalyticsCounters openAnalytics() {
+        AnalyticsCounters analytics = new AnalyticsCounters();
+        for (int row = 0, rows = PATIENT_TABLE.size(); row < rows; row++) {
+            analytics.patientAdded(PATIENT_TABLE.diseaseCode(row), PATIENT_TABLE.age(row));
+        }
+        for (Appointment appointment : APPOINTMENT_STORE.all()) {
+            analytics.appointmentAdded(appointment.getDoctorId(), appointment.getEpochDay(), appointment.getStatus());
+        }
+        return analytics;
+    }
+
+    private static SlotAvailability loadAvailability(ToIntFunction<Appointment> owner) {
+        SlotAvailability availability = new SlotAvailability();
+        for (Appointment appointment : APPOINTMENT_STORE.all()) {
+            if (appointment.getStatus() != Appointment.Status.SCHEDULED) {
+                continue; // only scheduled appointments hold their slots
             }
-            if (phone == null || !phone.matches("\\d{11}")) {
-                return "ERROR: Phone must be 11 digits";
+            availability.book(owner.applyAsInt(appointment), appointment.getEpochDay(),
+                    SlotAvailability.firstSlot(appointment.getStartMinute()),
+                    SlotAvailability.slotCount(appointment.getStartMinute(), appointment.getDurationMinutes()));
+        }
+        return availability;
+    }
+
+    // ===== PATIENT OPERATIONS =====
+    public static String addPatient(int id, String name, int age, String disease, String phone) {
+        return addPatientAsync(id, name, age, disease, phone).join();
+    }
+
+    /** Like addPatient, but completes once the record reaches the configured durability. */
+    public static CompletableFuture<String> addPatientAsync(int id, String name, int age, String disease, String phone) {
+        String error = validatePatient(name, age, phone);
+        if (error != null) {
+            return CompletableFuture.completedFuture("ERROR: " + error);
+        }
+
+        if (!claimPatientId(id)) {
+            return CompletableFuture.completedFuture("ERROR: Patient with ID " + id + " already exists");
+        }
+
+        // Log first; the patient becomes searchable only once the record is stored
+        return PATIENT_LOG.append(id, name, age, disease, phone)
+                .handle((offset, e) -> {
+                    if (e != null) {
+                        PENDING_PATIENT_IDS.remove(id);
+                        return "ERROR: Failed to add patient - " + rootMessage(e);
+                    }
+                    int samePhone = publishPatient(id, name, age, disease, phone);
+                    return "SUCCESS: Patient " + name + " added successfully" + (samePhone < 0 ? ""
+                            : " (WARNING: phone " + phone + " is already registered to patient "
+                              + PATIENT_TABLE.id(samePhone) + ")");
+                });
+    }
+
+    /** Adds a patient under a newly allocated id. */
+    public static String addPatient(String name, int age, String disease, String phone) {
+        String error = validatePatient(name, age, phone);
+        if (error != null) {
+            return "ERROR: " + error;
+        }
+        return addPatient(PATIENT_IDS.next(), name, age, disease, phone);
+    }
+
+    /** Returns the first id of a block of count newly allocated patient ids. */
+    public static int reservePatientIds(int count) {
+        return PATIENT_IDS.reserve(count);
+    }
+
+    public static boolean patientExists(int id) {
+        return PATIENT_TABLE.rowOf(id) >= 0;
+    }
+
+    /**
+     * Streams a patient CSV into the store in parallel batches.
+     * idBlocks receives a row count and returns the first id of a reserved block.
+     */
+    public static BulkPatientImporter.Result importPatients(Path csv, BulkPatientImporter.ProgressListener listener)
+            throws IOException {
+        return importPatients(csv, PATIENT_IDS::reserve, listener);
+    }
+
+    /** Like importPatients, with ids taken from the given block source. */
+    public static BulkPatientImporter.Result importPatients(Path csv, IntUnaryOperator idBlocks,
+                                                            BulkPatientImporter.ProgressListener listener) throws IOException {
+        return new BulkPatientImporter(ForkJoinPool.commonPool())
+                .importCsv(csv, idBlocks, listener);
+    }
+
+    /**
+     * Logs a batch of validated rows, then adds them to the in-memory table.
+     * Rows whose id is already taken are dropped before logging; each one's
+     * index is passed to duplicate before the arrays are compacted past it.
+     * The future completes once the rows are stored and visible, or fails
+     * with none of them added.
+     */
+    static CompletableFuture<Long> appendPatientBatch(int[] ids, String[] names, int[] ages,
+                                                      String[] diseases, String[] phones, int count,
+                                                      IntConsumer duplicate) {
+        int accepted = 0;
+        for (int i = 0; i < count; i++) {
+            if (!claimPatientId(ids[i])) {
+                duplicate.accept(i);
+                continue;
+            }
+            ids[accepted] = ids[i];
+            names[accepted] = names[i];
+            ages[accepted] = ages[i];
+            diseases[accepted] = diseases[i];
+            phones[accepted] = phones[i];
+            accepted++;
+        }
+        if (accepted == 0) {
+            return CompletableFuture.completedFuture(0L);
+        }
+        int rows = accepted;
+        return PATIENT_LOG.appendBatch(ids, names, ages, diseases, phones, rows)
+                .whenComplete((offset, e) -> {
+                    for (int i = 0; i < rows; i++) {
+                        if (e == null) {
+                            publishPatient(ids[i], names[i], ages[i], diseases[i], phones[i]);
+                        } else {
+                            PENDING_PATIENT_IDS.remove(ids[i]);
+                        }
+                    }
+                });
+    }
+
+    // Reserves the id for a patient about to be logged; false if a stored or pending patient has it
+    private static boolean claimPatientId(int id) {
+        if (!PENDING_PATIENT_IDS.add(id)) {
+            return false;
+        }
+        if (PATIENT_TABLE.rowOf(id) >= 0) {   // published before our claim
+            PENDING_PATIENT_IDS.remove(id);
+            return false;
+        }
+        PATIENT_IDS.observe(id);
+        return true;
+    }
+
+    /**
+     * Makes a logged patient visible: table, triage, indexes and totals.
+     * Returns the row of an earlier patient with the same phone, or -1.
+     */
+    private static int publishPatient(int id, String name, int age, String disease, String phone) {
+        int row = PATIENT_TABLE.add(id, name, age, disease, phone);
+        TRIAGE.classify(row);
+        DISEASE_INDEX.add(row);
+        NAME_INDEX.add(id, name);
+        ANALYTICS.patientAdded(PATIENT_TABLE.diseaseCode(row), age);
+        int samePhone = PHONE_INDEX.add(PATIENT_TABLE.packedPhone(row), row);
+        PENDING_PATIENT_IDS.remove(id);   // only now, so a claim racing us sees the row
+        return samePhone;
+    }
+
+    /** Returns null if the fields are valid, otherwise the reason. */
+    static String validatePatient(String name, int age, String phone) {
+        if (name == null || name.trim().isEmpty()) {
+            return "Patient name cannot be empty";
+        }
+        if (age < 1 || age > 119) {
+            return "Age must be between 1 and 119";
+        }
+        if (phone == null || phone.length() != 11) {
+            return "Phone must be 11 digits";
+        }
+        for (int i = 0; i < 11; i++) {
+            char c = phone.charAt(i);
+            if (c < '0' || c > '9') {
+                return "Phone must be 11 digits";
             }
-            
-            // Create patient record
-            String record = id + "," + name + "," + age + "," + disease + "," + phone;
-            
-            // Append to file
-            Files.write(
-                Paths.get(PATIENTS_FILE),
-                (record + "\n").getBytes(),
-                StandardOpenOption.CREATE,
-                StandardOpenOption.APPEND
-            );
-            
-            return "SUCCESS: Patient " + name + " added successfully";
-        } catch (Exception e) {
-            return "ERROR: Failed to add patient - " + e.getMessage();
         }
+        return null;
     }
 
+    /** The patient's record, built from the in-memory table. */
     public static String searchPatient(int id) {
         try {
-            ensureDataFolderExists();
-            
-            if (!new File(PATIENTS_FILE).exists()) {
+            if (PATIENT_TABLE.size() == 0) {
                 return "ERROR: No patients found";
             }
-            
-            List<String> lines = Files.readAllLines(Paths.get(PATIENTS_FILE));
-            for (String line : lines) {
-                if (line.startsWith(id + ",")) {
-                    return line;
-                }
+
+            int row = PATIENT_TABLE.rowOf(id);
+            if (row < 0) {
+                return "ERROR: Patient with ID " + id + " not found";
             }
-            
-            return "ERROR: Patient with ID " + id + " not found";
+            return PATIENT_TABLE.record(row);
         } catch (Exception e) {
             return "ERROR: Search failed - " + e.getMessage();
         }
     }
 
+    public static String clearAllPatients() {
+        try {
+            // Keep handing out fresh ids; appointments may still refer to the old ones
+            PATIENT_IDS.persistFloor();
+            PATIENT_LOG.clear();
+            Files.deleteIfExists(Paths.get(PATIENTS_FILE));
+            PATIENT_TABLE.clear();
+            TRIAGE.clear();
+            DISEASE_INDEX.clear();
+            NAME_INDEX.clear();
+            PHONE_INDEX.clear();
+            ANALYTICS.patientsCleared();
+            WAITING_ROOM.clear();
+            return "SUCCESS: All patients cleared";
+        } catch (Exception e) {
+            return "ERROR: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Every patient in id order, materialized in one list.
+     * Prefer getPatientsPage, patientCursor or countPatients for large stores.
+     */
     public static List<String> getAllPatientsSorted() {
         try {
             ensureDataFolderExists();
             
-            List<String> patients = new ArrayList<>();
-            if (new File(PATIENTS_FILE).exists()) {
-                patients = Files.readAllLines(Paths.get(PATIENTS_FILE));
-            }
-            
-            // Sort by ID
-            patients.sort((a, b) -> {
-                try {
-                    int idA = Integer.parseInt(a.split(",")[0].trim());
-                    int idB = Integer.parseInt(b.split(",")[0].trim());
-                    return Integer.compare(idA, idB);
-                } catch (Exception e) {
-                    return 0;
-                }
-            });
-            
-            return patients;
+            return PATIENT_LOG.readAllSorted();
         } catch (Exception e) {
             List<String> error = new ArrayList<>();
             error.add("ERROR: " + e.getMessage());
@@ -110,55 +390,278 @@ public class CppIntegrationService {
         }
     }
 
+    public static int countPatients() {
+        return PATIENT_TABLE.size();
+    }
+
+    /** Page number pageIndex (0-based) of the patients in id order. */
+    public static List<String> getPatientsPage(int pageIndex, int pageSize) {
+        try {
+            return PATIENT_LOG.pageAt(pageIndex, pageSize).records;
+        } catch (Exception e) {
+            List<String> error = new ArrayList<>();
+            error.add("ERROR: " + e.getMessage());
+            return error;
+        }
+    }
+
+    /** Streams patients in id order starting at startId, pageSize records at a time. */
+    public static PatientCursor patientCursor(int startId, int pageSize) {
+        return new PatientCursor(PATIENT_LOG, startId, pageSize);
+    }
+
+    /** Critical then high-priority patients, read from the triage index built at ingest. */
     public static String findHighPriorityPatients() {
         try {
-            ensureDataFolderExists();
-            
-            List<String> patients = getAllPatientsSorted();
+            TRIAGE.reloadIfChanged();
+
             StringBuilder result = new StringBuilder();
             int count = 0;
-            
-            for (String line : patients) {
-                String[] parts = line.split(",");
-                if (parts.length >= 4) {
-                    String disease = parts[3].toLowerCase();
-                    // High priority: critical diseases
-                    if (disease.contains("heart") || disease.contains("stroke") || disease.contains("cancer")) {
-                        result.append(line).append("\n");
+            for (int level = TriageClassifier.CRITICAL; level <= TriageClassifier.HIGH; level++) {
+                for (int id : TRIAGE.ids(level).toArray()) {
+                    int row = PATIENT_TABLE.rowOf(id);
+                    if (row >= 0) {
+                        result.append(PATIENT_TABLE.record(row)).append("\n");
                         count++;
                     }
                 }
             }
-            
+
             if (count == 0) {
                 return "No high priority patients found";
             }
-            
+
             return result.toString();
         } catch (Exception e) {
             return "ERROR: " + e.getMessage();
         }
     }
 
-    public static String getPatientReferralAnalysis() {
+    /** CRITICAL, HIGH or NORMAL; null if there is no such patient. */
+    public static String getPatientPriority(int id) {
+        int row = PATIENT_TABLE.rowOf(id);
+        return row < 0 ? null : TriageClassifier.levelName(PATIENT_TABLE.priority(row));
+    }
+
+    /** Number of patients at a level (CRITICAL, HIGH or NORMAL); -1 for an unknown level. */
+    public static int countPatientsByPriority(String level) {
+        int code = TriageClassifier.levelOf(level);
+        return code == 0 ? -1 : TRIAGE.count(code);
+    }
+
+    /** Re-reads DataFiles/triage_keywords.txt and classifies every patient again. */
+    public static String reloadTriageDictionary() {
         try {
-            List<String> patients = getAllPatientsSorted();
-            
-            // Build disease distribution
-            Map<String, Integer> diseaseCount = new HashMap<>();
-            for (String line : patients) {
-                String[] parts = line.split(",");
-                if (parts.length >= 4) {
-                    String disease = parts[3].trim();
-                    diseaseCount.put(disease, diseaseCount.getOrDefault(disease, 0) + 1);
-                }
+            TRIAGE.reload();
+            return "SUCCESS: Triage dictionary reloaded";
+        } catch (Exception e) {
+            return "ERROR: Cannot reload triage dictionary - " + e.getMessage();
+        }
+    }
+
+    /** Patient and appointment totals as of one instant; no patient or appointment is read. */
+    public static AnalyticsSnapshot getAnalyticsSnapshot() {
+        return ANALYTICS.snapshot(PATIENT_TABLE.diseaseDictionary());
+    }
+
+    /**
+     * Runs an ad-hoc aggregation over the patients or the appointments,
+     * split across the common fork-join pool's threads.
+     */
+    public static AggregateResult aggregate(AggregateQuery query) {
+        return aggregate(query, ForkJoinPool.commonPool());
+    }
+
+    /** Like aggregate, on the given pool. */
+    public static AggregateResult aggregate(AggregateQuery query, ForkJoinPool pool) {
+        AggregationEngine engine = query.source() == AggregateQuery.Source.PATIENTS
+                ? AggregationEngine.overPatients(PATIENT_TABLE)
+                : AggregationEngine.overAppointments(APPOINTMENT_STORE.all(), DOCTORS);
+        return engine.run(query, pool);
+    }
+
+    // ===== NAME SEARCH =====
+
+    /**
+     * Up to limit patients with a name word starting with the prefix
+     * (ignoring case and punctuation), best matches first; "ahmed k"
+     * finds "Ahmed Khan", "khan" finds him too.
+     */
+    public static List<String> searchPatientsByName(String prefix, int limit) {
+        List<String> records = new ArrayList<>();
+        for (int id : NAME_INDEX.search(prefix, limit)) {
+            int row = PATIENT_TABLE.rowOf(id);
+            if (row >= 0) {
+                records.add(PATIENT_TABLE.record(row));
             }
-            
+        }
+        return records;
+    }
+
+    /**
+     * Patients whose name is close to the given one despite typos
+     * ("Mohammed" finds "Muhammad"), closest first, as records with the
+     * similarity in percent appended. The query may be a whole name or
+     * some of its words; one edit per four letters is allowed, at least
+     * one and at most medico.fuzzyMaxEdits (3).
+     */
+    public static List<String> searchPatientsByNameFuzzy(String name, int limit) {
+        int edits = Math.max(1, Math.min(FUZZY_MAX_EDITS, NameIndex.normalize(name).length() / 4));
+        return searchPatientsByNameFuzzy(name, edits, limit);
+    }
+
+    /** Like searchPatientsByNameFuzzy(name, limit) with at most maxEdits edits. */
+    public static List<String> searchPatientsByNameFuzzy(String name, int maxEdits, int limit) {
+        List<String> records = new ArrayList<>();
+        for (NameIndex.Match match : NAME_INDEX.fuzzySearch(name, maxEdits, limit)) {
+            int row = PATIENT_TABLE.rowOf(match.id);
+            if (row >= 0) {
+                records.add(PATIENT_TABLE.record(row) + "," + match.similarity + "%");
+            }
+        }
+        return records;
+    }
+
+    // ===== PHONE LOOKUP =====
+
+    /** Patients registered with the phone number, in registration order; empty if none. */
+    public static List<String> findPatientsByPhone(String phone) {
+        List<String> records = new ArrayList<>();
+        for (int row : PHONE_INDEX.rows(PatientTable.packPhone(phone == null ? null : phone.trim()))) {
+            records.add(PATIENT_TABLE.record(row));
+        }
+        return records;
+    }
+
+    // ===== DISEASE INDEX =====
+
+    /** Patients whose disease contains the text (ignoring case), in id order. */
+    public static List<String> findPatientsByDisease(String disease) {
+        return records(DISEASE_INDEX.matching(disease));
+    }
+
+    /** Like findPatientsByDisease, limited to one triage level (CRITICAL, HIGH or NORMAL). */
+    public static List<String> findPatientsByDisease(String disease, String priority) {
+        int level = TriageClassifier.levelOf(priority);
+        if (level == 0) {
+            return Collections.singletonList("ERROR: Priority must be CRITICAL, HIGH or NORMAL");
+        }
+        return records(DISEASE_INDEX.matching(disease).and(TRIAGE.ids(level)));
+    }
+
+    public static int countPatientsByDisease(String disease) {
+        return DISEASE_INDEX.count(disease);
+    }
+
+    /** Other patients with exactly the same disease, in id order. */
+    public static List<String> findSimilarPatients(int patientId) {
+        int row = PATIENT_TABLE.rowOf(patientId);
+        if (row < 0) {
+            return Collections.singletonList("ERROR: Patient with ID " + patientId + " not found");
+        }
+        List<String> similar = new ArrayList<>();
+        DISEASE_INDEX.sameDisease(row).forEach(id -> {
+            int other = id == patientId ? -1 : PATIENT_TABLE.rowOf(id);
+            if (other >= 0) {
+                similar.add(PATIENT_TABLE.record(other));
+            }
+        });
+        return similar;
+    }
+
+    private static List<String> records(CompressedBitmap ids) {
+        List<String> records = new ArrayList<>(ids.cardinality());
+        ids.forEach(id -> {
+            int row = PATIENT_TABLE.rowOf(id);
+            if (row >= 0) {
+                records.add(PATIENT_TABLE.record(row));
+            }
+        });
+        return records;
+    }
+
+    // ===== WAITING ROOM =====
+
+    /** Queues a patient at their triage level; safe to call from several desks at once. */
+    public static String enqueueWaitingPatient(int patientId) {
+        int row = PATIENT_TABLE.rowOf(patientId);
+        if (row < 0) {
+            return "ERROR: Patient with ID " + patientId + " not found";
+        }
+        int level = PATIENT_TABLE.priority(row);
+        if (!WAITING_ROOM.enqueue(patientId, level)) {
+            return "ERROR: Patient " + patientId + " is already waiting";
+        }
+        return "SUCCESS: Patient " + patientId + " queued as " + TriageClassifier.levelName(level);
+    }
+
+    /** Removes the next patient to be seen and returns their record. */
+    public static String callNextPatient() {
+        int patientId = WAITING_ROOM.poll();
+        if (patientId < 0) {
+            return "No patients waiting";
+        }
+        int row = PATIENT_TABLE.rowOf(patientId);
+        return row < 0 ? "Patient " + patientId : PATIENT_TABLE.record(row);
+    }
+
+    /** Moves a waiting patient to another level (CRITICAL, HIGH or NORMAL), keeping their arrival. */
+    public static String reprioritizeWaitingPatient(int patientId, String level) {
+        int code = TriageClassifier.levelOf(level);
+        if (code == 0) {
+            return "ERROR: Priority must be CRITICAL, HIGH or NORMAL";
+        }
+        if (!WAITING_ROOM.update(patientId, code)) {
+            return "ERROR: Patient " + patientId + " is not waiting";
+        }
+        return "SUCCESS: Patient " + patientId + " is now " + TriageClassifier.levelName(code);
+    }
+
+    public static String removeWaitingPatient(int patientId) {
+        return WAITING_ROOM.remove(patientId)
+                ? "SUCCESS: Patient " + patientId + " left the queue"
+                : "ERROR: Patient " + patientId + " is not waiting";
+    }
+
+    /** Waiting patients in call order, as "priority,record" lines. */
+    public static List<String> getWaitingPatients() {
+        List<String> lines = new ArrayList<>();
+        for (int patientId : WAITING_ROOM.snapshot()) {
+            int level = WAITING_ROOM.priorityOf(patientId);
+            if (level == 0) {
+                continue; // called while the list was being built
+            }
+            int row = PATIENT_TABLE.rowOf(patientId);
+            lines.add(TriageClassifier.levelName(level) + ","
+                    + (row < 0 ? String.valueOf(patientId) : PATIENT_TABLE.record(row)));
+        }
+        return lines;
+    }
+
+    public static int countWaitingPatients() {
+        return WAITING_ROOM.size();
+    }
+
+    public static String getPatientReferralAnalysis() {
+        try {
+            // Disease distribution from the running totals
+            AnalyticsSnapshot snapshot = getAnalyticsSnapshot();
+
             StringBuilder result = new StringBuilder();
             result.append("Disease Distribution:\n");
-            diseaseCount.forEach((disease, count) -> 
-                result.append("  • ").append(disease).append(": ").append(count).append(" patients\n")
-            );
+            snapshot.getPatientsByDisease().forEach((disease, count) ->
+                    result.append("  • ").append(disease).append(": ").append(count).append(" patients\n"));
+            result.append("Age Distribution:\n");
+            long[] ageBands = snapshot.getPatientsByAgeBand();
+            for (int band = 0; band < ageBands.length; band++) {
+                if (ageBands[band] > 0) {
+                    result.append("  • ").append(AnalyticsSnapshot.getAgeBandLabel(band)).append(": ")
+                          .append(ageBands[band]).append(" patients\n");
+                }
+            }
+            result.append("Appointments:\n");
+            snapshot.getAppointmentsByStatus().forEach((status, count) ->
+                    result.append("  • ").append(status).append(": ").append(count).append('\n'));
             
             return result.toString();
         } catch (Exception e) {
@@ -181,77 +684,503 @@ public class CppIntegrationService {
         }
     }
 
-    public static String getDoctorLoadStatus() {
+    // ===== DOCTOR OPERATIONS =====
+    public static String addDoctor(String name, String specialization, int capacity) {
+        if (name == null || name.trim().isEmpty()) {
+            return "ERROR: Doctor name cannot be empty";
+        }
+        if (specialization == null || specialization.trim().isEmpty()) {
+            specialization = DoctorRegistry.DEFAULT_SPECIALIZATION;
+        }
+        if (name.indexOf(',') >= 0 || specialization.indexOf(',') >= 0
+                || name.indexOf('\n') >= 0 || specialization.indexOf('\n') >= 0) {
+            return "ERROR: Name and specialization cannot contain commas or line breaks";
+        }
+        if (capacity < 0) {
+            return "ERROR: Capacity cannot be negative";
+        }
         try {
-            return "Doctor Load Status:\n" +
-                   "  Dr. Ahmed Khan (Cardiology): 8 patients\n" +
-                   "  Dr. Fatima Ali (Surgery): 6 patients\n" +
-                   "  Dr. Hassan Muhammad (Pediatrics): 5 patients\n" +
-                   "  Average Load: 6.3 patients per doctor";
-        } catch (Exception e) {
+            ensureDataFolderExists();
+            int id = DOCTORS.add(name, specialization, capacity).id;
+            return "SUCCESS: Doctor " + id + " added";
+        } catch (IOException e) {
             return "ERROR: " + e.getMessage();
         }
     }
 
+    public static boolean doctorExists(int doctorId) {
+        return DOCTORS.get(doctorId) != null;
+    }
+
+    /** Every registered doctor with their current open-appointment count. */
+    public static List<Doctor> getDoctors() {
+        return DOCTORS.snapshot();
+    }
+
+    public static List<Doctor> getDoctorsBySpecialization(String specialization) {
+        List<Doctor> doctors = new ArrayList<>();
+        for (DoctorRegistry.Entry entry : DOCTORS.withSpecialization(specialization)) {
+            doctors.add(DOCTORS.toDoctor(entry));
+        }
+        return doctors;
+    }
+
+    public static String getDoctorLoadStatus() {
+        List<Doctor> doctors = DOCTORS.snapshot();
+        if (doctors.isEmpty()) {
+            return "No doctors registered yet";
+        }
+        StringBuilder result = new StringBuilder("Doctor Load Status:\n");
+        long total = 0;
+        for (Doctor doctor : doctors) {
+            result.append("  Dr. ").append(doctor.getName())
+                  .append(" (").append(doctor.getSpecialization()).append("): ")
+                  .append(doctor.getAppointmentCount()).append(" patients\n");
+            total += doctor.getAppointmentCount();
+        }
+        result.append(String.format("  Average Load: %.1f patients per doctor", (double) total / doctors.size()));
+        return result.toString();
+    }
+
+    /**
+     * Plans moves of future appointments that even out the loads of each
+     * specialization's doctors; nothing changes until applyLoadBalance.
+     */
+    public static RebalancePlan planLoadBalance() {
+        LocalDateTime now = LocalDateTime.now();
+        int today = (int) now.toLocalDate().toEpochDay();
+        int minuteNow = now.getHour() * 60 + now.getMinute();
+
+        List<Appointment> future = new ArrayList<>();
+        for (Appointment appointment : APPOINTMENT_STORE.between(today, SlotAvailability.LAST_DAY)) {
+            if (appointment.getStatus() == Appointment.Status.SCHEDULED
+                    && (appointment.getEpochDay() > today || appointment.getStartMinute() > minuteNow)) {
+                future.add(appointment);
+            }
+        }
+        return LoadBalancer.plan(DOCTORS, future, AVAILABILITY, ForkJoinPool.commonPool());
+    }
+
+    public static String previewLoadBalance(RebalancePlan plan) {
+        if (plan.isEmpty()) {
+            return "Loads are already balanced; no appointments need to move";
+        }
+        StringBuilder result = new StringBuilder("Rebalance plan: " + plan.getMoves().size() + " move(s)\n");
+        int shown = 0;
+        for (RebalancePlan.Move move : plan.getMoves()) {
+            if (++shown > 50) {
+                result.append("  ... and ").append(plan.getMoves().size() - 50).append(" more\n");
+                break;
+            }
+            result.append("  ").append(move).append('\n');
+        }
+        result.append("Load after the plan:\n");
+        for (Map.Entry<Integer, Integer> load : plan.getLoadsAfter().entrySet()) {
+            int before = plan.getLoadsBefore().get(load.getKey());
+            if (before != load.getValue()) {
+                result.append("  Doctor ").append(load.getKey()).append(": ")
+                      .append(before).append(" -> ").append(load.getValue()).append('\n');
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Carries out every move of the plan or none of them. All booking
+     * stripes are held while the moves are checked against the current
+     * appointments and slots, so no booking or cancellation can slip in
+     * between; the moves are then logged as a single record. Each
+     * appointment holds its slots with both doctors until the record is
+     * durable: loads, analytics and the old doctor's slots change only then,
+     * and if the write fails the new doctor's slots are given back.
+     */
+    public static String applyLoadBalance(RebalancePlan plan) {
+        if (plan.isEmpty()) {
+            return "SUCCESS: Nothing to move";
+        }
+        List<RebalancePlan.Move> moves = plan.getMoves();
+        CompletableFuture<Integer> logged = BOOKING_LOCKS.withAllLocks(() -> {
+            for (RebalancePlan.Move move : moves) {
+                Appointment appointment = APPOINTMENT_STORE.get(move.getAppointmentId());
+                if (appointment == null || appointment.getStatus() != Appointment.Status.SCHEDULED
+                        || appointment.getDoctorId() != move.getFromDoctorId()) {
+                    return null;
+                }
+            }
+            int claimed = 0;
+            for (; claimed < moves.size(); claimed++) {
+                if (!claimSlots(moves.get(claimed))) {
+                    break;
+                }
+            }
+            if (claimed < moves.size()) {
+                while (claimed > 0) {
+                    RebalancePlan.Move move = moves.get(--claimed);
+                    freeSlots(move, move.getToDoctorId());
+                }
+                return null;
+            }
+
+            int[] ids = new int[moves.size()];
+            int[] doctorIds = new int[moves.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = moves.get(i).getAppointmentId();
+                doctorIds[i] = moves.get(i).getToDoctorId();
+            }
+            try {
+                return APPOINTMENT_STORE.reassign(ids, doctorIds);
+            } catch (IOException e) {
+                CompletableFuture<Integer> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                return failed;
+            }
+        });
+        if (logged == null) {
+            return "ERROR: Appointments changed since the plan was made; plan again";
+        }
+        // Settled here rather than in a callback on the WAL writer thread, which must not wait on a stripe
+        try {
+            int count = logged.join();
+            for (RebalancePlan.Move move : moves) {
+                freeSlots(move, move.getFromDoctorId());
+                DOCTORS.adjustLoad(move.getFromDoctorId(), -1);
+                DOCTORS.adjustLoad(move.getToDoctorId(), 1);
+                ANALYTICS.reassigned(move.getFromDoctorId(), move.getToDoctorId());
+            }
+            return "SUCCESS: Moved " + count + " appointment(s)";
+        } catch (CompletionException e) {
+            for (RebalancePlan.Move move : moves) {
+                freeSlots(move, move.getToDoctorId());
+            }
+            return "ERROR: " + rootMessage(e);
+        }
+    }
+
+    // Books the appointment's slots with its new doctor; caller holds every stripe
+    private static boolean claimSlots(RebalancePlan.Move move) {
+        return AVAILABILITY.tryBook(move.getToDoctorId(), move.getEpochDay(),
+                SlotAvailability.firstSlot(move.getStartMinute()),
+                SlotAvailability.slotCount(move.getStartMinute(), move.getDurationMinutes()));
+    }
+
+    private static void freeSlots(RebalancePlan.Move move, int doctorId) {
+        BOOKING_LOCKS.withLocks(new int[]{BOOKING_LOCKS.stripeOf(StripedLocks.DOCTOR, doctorId)}, () -> {
+            AVAILABILITY.release(doctorId, move.getEpochDay(), SlotAvailability.firstSlot(move.getStartMinute()),
+                    SlotAvailability.slotCount(move.getStartMinute(), move.getDurationMinutes()));
+            return null;
+        });
+    }
+
     public static String scheduleAppointment(int patientId, int doctorId, String date, String time) {
+        return scheduleAppointmentAsync(patientId, doctorId, date, time).join();
+    }
+
+    /** Like scheduleAppointment, but completes once the record reaches the configured durability. */
+    public static CompletableFuture<String> scheduleAppointmentAsync(int patientId, int doctorId, String date, String time) {
+        if (!patientExists(patientId)) {
+            return CompletableFuture.completedFuture("ERROR: Patient not found");
+        }
+        if (!doctorExists(doctorId)) {
+            return CompletableFuture.completedFuture("ERROR: Doctor not found");
+        }
+
+        int day, startMinute, durationMinutes;
         try {
-            ensureDataFolderExists();
-            String patient = searchPatient(patientId);
-            
-            if (patient.startsWith("ERROR")) {
-                return "ERROR: Patient not found";
+            day = SlotAvailability.epochDay(date);
+            startMinute = SlotAvailability.startMinute(time);
+            durationMinutes = SlotAvailability.durationMinutes(time);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture("ERROR: " + e.getMessage());
+        }
+
+        String conflict = reserveSlots(patientId, doctorId, day,
+                SlotAvailability.firstSlot(startMinute), SlotAvailability.slotCount(startMinute, durationMinutes));
+        if (conflict != null) {
+            return CompletableFuture.completedFuture("ERROR: " + conflict);
+        }
+        DOCTORS.adjustLoad(doctorId, 1);
+        return storeBooking(patientId, doctorId, day, startMinute, durationMinutes,
+                "SUCCESS: Appointment scheduled for " + date + " at " + time);
+    }
+
+    /**
+     * Books the patient with the least-loaded doctor of the specialization
+     * who is free at that time. Choosing the doctor and taking a unit of
+     * their load is one step on the specialization's load heap, so
+     * concurrent assignments spread over doctors instead of all picking
+     * the same one; a doctor whose slot turns out to be taken gives the
+     * unit back and the next least-loaded one is tried.
+     */
+    public static String assignAppointment(int patientId, String specialization, String date, String time) {
+        return assignAppointmentAsync(patientId, specialization, date, time).join();
+    }
+
+    public static CompletableFuture<String> assignAppointmentAsync(int patientId, String specialization,
+                                                                   String date, String time) {
+        if (!patientExists(patientId)) {
+            return CompletableFuture.completedFuture("ERROR: Patient not found");
+        }
+        if (DOCTORS.leastLoaded(specialization) == null) {
+            return CompletableFuture.completedFuture("ERROR: No doctors with specialization " + specialization);
+        }
+
+        int day, startMinute, durationMinutes;
+        try {
+            day = SlotAvailability.epochDay(date);
+            startMinute = SlotAvailability.startMinute(time);
+            durationMinutes = SlotAvailability.durationMinutes(time);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture("ERROR: " + e.getMessage());
+        }
+
+        int firstSlot = SlotAvailability.firstSlot(startMinute);
+        int slotCount = SlotAvailability.slotCount(startMinute, durationMinutes);
+        Set<Integer> busy = new HashSet<>();
+        DoctorRegistry.Entry doctor;
+        while ((doctor = DOCTORS.claimLeastLoaded(specialization, d -> !busy.contains(d.id))) != null) {
+            String conflict = reserveSlots(patientId, doctor.id, day, firstSlot, slotCount);
+            if (conflict == null) {
+                return storeBooking(patientId, doctor.id, day, startMinute, durationMinutes,
+                        "SUCCESS: Appointment scheduled with Dr. " + doctor.name + " (Doctor " + doctor.id
+                                + ") for " + date + " at " + time);
             }
-            
-            // Write appointment
-            String appointment = patientId + "," + doctorId + "," + date + "," + time;
-            String appointmentFile = DATA_PATH + "appointments.txt";
-            
-            Files.write(
-                Paths.get(appointmentFile),
-                (appointment + "\n").getBytes(),
-                StandardOpenOption.CREATE,
-                StandardOpenOption.APPEND
-            );
-            
-            return "SUCCESS: Appointment scheduled for " + date + " at " + time;
-        } catch (Exception e) {
-            return "ERROR: " + e.getMessage();
+            DOCTORS.adjustLoad(doctor.id, -1);
+            if (conflict.equals(PATIENT_BUSY)) {
+                return CompletableFuture.completedFuture("ERROR: " + conflict);
+            }
+            busy.add(doctor.id);
         }
+        return CompletableFuture.completedFuture("ERROR: No " + specialization + " doctor is free at that time");
     }
 
-    public static String viewScheduledAppointments() {
+    /** The least-loaded doctor of the specialization, or null if it has none. */
+    public static Doctor getLeastLoadedDoctor(String specialization) {
+        DoctorRegistry.Entry entry = DOCTORS.leastLoaded(specialization);
+        return entry == null ? null : DOCTORS.toDoctor(entry);
+    }
+
+    /**
+     * Stores a booking whose slots and doctor load are already taken. If it
+     * cannot be stored, now or when its log write fails, both are given back;
+     * the store has then withdrawn it, and it is counted only once durable.
+     */
+    private static CompletableFuture<String> storeBooking(int patientId, int doctorId, int day,
+                                                          int startMinute, int durationMinutes, String success) {
         try {
-            ensureDataFolderExists();
-            String appointmentFile = DATA_PATH + "appointments.txt";
-            
-            if (!new File(appointmentFile).exists()) {
-                return "No appointments scheduled yet";
+            return APPOINTMENT_STORE.add(patientId, doctorId, day, startMinute, durationMinutes)
+                    .handle((appointment, e) -> {
+                        if (e != null) {
+                            unbook(patientId, doctorId, day, startMinute, durationMinutes);
+                            return "ERROR: " + rootMessage(e);
+                        }
+                        ANALYTICS.appointmentAdded(doctorId, day, Appointment.Status.SCHEDULED);
+                        return success;
+                    });
+        } catch (IOException e) {
+            unbook(patientId, doctorId, day, startMinute, durationMinutes);
+            return CompletableFuture.completedFuture("ERROR: " + e.getMessage());
+        }
+    }
+
+    private static void unbook(int patientId, int doctorId, int day, int startMinute, int durationMinutes) {
+        releaseSlots(patientId, doctorId, day, SlotAvailability.firstSlot(startMinute),
+                SlotAvailability.slotCount(startMinute, durationMinutes));
+        DOCTORS.adjustLoad(doctorId, -1);
+    }
+
+    /**
+     * Checks and reserves the doctor's and the patient's slots as one step.
+     * Returns null on success, otherwise the conflict; nothing is reserved then.
+     */
+    private static String reserveSlots(int patientId, int doctorId, int day, int firstSlot, int slotCount) {
+        return BOOKING_LOCKS.withLocks(
+                BOOKING_LOCKS.stripeOf(StripedLocks.DOCTOR, doctorId),
+                BOOKING_LOCKS.stripeOf(StripedLocks.PATIENT, patientId), () -> {
+                    if (!AVAILABILITY.isFree(doctorId, day, firstSlot, slotCount)) {
+                        return SLOT_TAKEN;
+                    }
+                    if (!PATIENT_SCHEDULE.isFree(patientId, day, firstSlot, slotCount)) {
+                        return PATIENT_BUSY;
+                    }
+                    AVAILABILITY.book(doctorId, day, firstSlot, slotCount);
+                    PATIENT_SCHEDULE.book(patientId, day, firstSlot, slotCount);
+                    return null;
+                });
+    }
+
+    private static void releaseSlots(int patientId, int doctorId, int day, int firstSlot, int slotCount) {
+        BOOKING_LOCKS.withLocks(
+                BOOKING_LOCKS.stripeOf(StripedLocks.DOCTOR, doctorId),
+                BOOKING_LOCKS.stripeOf(StripedLocks.PATIENT, patientId), () -> {
+                    AVAILABILITY.release(doctorId, day, firstSlot, slotCount);
+                    PATIENT_SCHEDULE.release(patientId, day, firstSlot, slotCount);
+                    return null;
+                });
+    }
+
+    public static String cancelAppointment(int appointmentId) {
+        return updateAppointmentStatus(appointmentId, Appointment.Status.CANCELLED);
+    }
+
+    public static String completeAppointment(int appointmentId) {
+        return updateAppointmentStatus(appointmentId, Appointment.Status.COMPLETED);
+    }
+
+    public static String markNoShow(int appointmentId) {
+        return updateAppointmentStatus(appointmentId, Appointment.Status.NO_SHOW);
+    }
+
+    private static String updateAppointmentStatus(int appointmentId, Appointment.Status status) {
+        Appointment appointment = APPOINTMENT_STORE.get(appointmentId);
+        if (appointment == null) {
+            return "ERROR: Appointment " + appointmentId + " not found";
+        }
+        if (appointment.getStatus() != Appointment.Status.SCHEDULED) {
+            return "ERROR: Appointment " + appointmentId + " is already " + appointment.getStatus();
+        }
+        String result = updateAppointmentStatuses(new int[]{appointmentId}, status);
+        return result.startsWith("SUCCESS")
+                ? "SUCCESS: Appointment " + appointmentId + " marked " + status
+                : result;
+    }
+
+    /**
+     * Moves every listed SCHEDULED appointment to the status in one batch,
+     * e.g. marking a day's appointments completed or no-show at closing.
+     * Each change is a one-byte write to its record and takes one off the
+     * doctor's open load; cancelled appointments also give their slots back
+     * to the doctor and the patient. The statuses change under the doctors'
+     * booking stripes, so a rebalance, which holds every stripe, sees each
+     * appointment either before or after the change and never moves one
+     * that is no longer SCHEDULED. Loads, analytics and slots change only
+     * once the batch is logged; if the log write fails the store has put
+     * the statuses back by the time the error is returned, so nothing is
+     * left half-applied.
+     */
+    public static String updateAppointmentStatuses(int[] appointmentIds, Appointment.Status status) {
+        if (status == Appointment.Status.SCHEDULED) {
+            return "ERROR: Appointments cannot be moved back to SCHEDULED";
+        }
+        int[] stripes = new int[appointmentIds.length];
+        for (int i = 0; i < appointmentIds.length; i++) {
+            Appointment appointment = APPOINTMENT_STORE.get(appointmentIds[i]);
+            int doctorId = appointment == null ? 0 : appointment.getDoctorId();
+            stripes[i] = BOOKING_LOCKS.stripeOf(StripedLocks.DOCTOR, doctorId);
+        }
+        try {
+            List<Appointment> changed = BOOKING_LOCKS.withLocks(stripes, () -> {
+                try {
+                    return APPOINTMENT_STORE.updateStatus(appointmentIds, status);
+                } catch (IOException e) {
+                    CompletableFuture<List<Appointment>> failed = new CompletableFuture<>();
+                    failed.completeExceptionally(e);
+                    return failed;
+                }
+            }).join();
+            for (Appointment appointment : changed) {
+                DOCTORS.adjustLoad(appointment.getDoctorId(), -1);
+                ANALYTICS.statusChanged(appointment, Appointment.Status.SCHEDULED);
             }
-            
-            List<String> appointments = Files.readAllLines(Paths.get(appointmentFile));
-            StringBuilder result = new StringBuilder("Scheduled Appointments:\n");
-            
-            for (String apt : appointments) {
-                String[] parts = apt.split(",");
-                if (parts.length >= 4) {
-                    result.append(String.format("  Patient %s, Doctor %s, %s at %s\n", 
-                        parts[0], parts[1], parts[2], parts[3]));
+            if (status == Appointment.Status.CANCELLED) {
+                for (Appointment appointment : changed) {
+                    int startMinute = appointment.getStartMinute();
+                    releaseSlots(appointment.getPatientId(), appointment.getDoctorId(), appointment.getEpochDay(),
+                            SlotAvailability.firstSlot(startMinute),
+                            SlotAvailability.slotCount(startMinute, appointment.getDurationMinutes()));
                 }
             }
-            
-            return result.toString();
+            return "SUCCESS: " + changed.size() + " appointment(s) marked " + status;
+        } catch (RuntimeException e) {
+            return "ERROR: " + rootMessage(e);
+        }
+    }
+
+    /** Every appointment in id order, for tables. */
+    public static List<Appointment> getAllAppointments() {
+        return APPOINTMENT_STORE.all();
+    }
+
+    /** Free SLOT_MINUTES slots of the doctor's day within clinic hours, as "HH:MM" start times. */
+    public static List<String> getAvailableSlots(int doctorId, String date) {
+        List<String> slots = new ArrayList<>();
+        try {
+            for (int slot : AVAILABILITY.freeSlots(doctorId, SlotAvailability.epochDay(date))) {
+                slots.add(SlotAvailability.formatTime(slot * SlotAvailability.SLOT_MINUTES));
+            }
+        } catch (IllegalArgumentException e) {
+            slots.add("ERROR: " + e.getMessage());
+        }
+        return slots;
+    }
+
+    public static String viewScheduledAppointments() {
+        try {
+            List<Appointment> appointments = APPOINTMENT_STORE.all();
+            if (appointments.isEmpty()) {
+                return "No appointments scheduled yet";
+            }
+            return formatAppointments("Scheduled Appointments:\n", appointments);
         } catch (Exception e) {
             return "ERROR: " + e.getMessage();
         }
     }
 
+    /** The patient's appointment history in date order. */
+    public static String getPatientAppointments(int patientId) {
+        List<Appointment> appointments = APPOINTMENT_STORE.forPatient(patientId);
+        if (appointments.isEmpty()) {
+            return "No appointments for Patient " + patientId;
+        }
+        return formatAppointments("Appointments for Patient " + patientId + ":\n", appointments);
+    }
+
+    /** The doctor's appointments between two YYYY-MM-DD dates, inclusive. */
+    public static String getDoctorAppointments(int doctorId, String fromDate, String toDate) {
+        try {
+            List<Appointment> appointments = APPOINTMENT_STORE.forDoctor(doctorId,
+                    SlotAvailability.epochDay(fromDate), SlotAvailability.epochDay(toDate));
+            if (appointments.isEmpty()) {
+                return "No appointments for Doctor " + doctorId + " from " + fromDate + " to " + toDate;
+            }
+            return formatAppointments("Appointments for Doctor " + doctorId + ":\n", appointments);
+        } catch (IllegalArgumentException e) {
+            return "ERROR: " + e.getMessage();
+        }
+    }
+
+    /** Every appointment between two YYYY-MM-DD dates, inclusive, in date order. */
+    public static String getAppointmentsBetween(String fromDate, String toDate) {
+        try {
+            List<Appointment> appointments = APPOINTMENT_STORE.between(
+                    SlotAvailability.epochDay(fromDate), SlotAvailability.epochDay(toDate));
+            if (appointments.isEmpty()) {
+                return "No appointments from " + fromDate + " to " + toDate;
+            }
+            return formatAppointments("Appointments from " + fromDate + " to " + toDate + ":\n", appointments);
+        } catch (IllegalArgumentException e) {
+            return "ERROR: " + e.getMessage();
+        }
+    }
+
+    private static String formatAppointments(String title, List<Appointment> appointments) {
+        StringBuilder result = new StringBuilder(title.length() + appointments.size() * 48).append(title);
+        for (Appointment apt : appointments) {
+            result.append("  Patient ").append(apt.getPatientId())
+                  .append(", Doctor ").append(apt.getDoctorId())
+                  .append(", ").append(apt.getDate()).append(" at ").append(apt.getTime());
+            if (apt.getStatus() != Appointment.Status.SCHEDULED) {
+                result.append(" (").append(apt.getStatus()).append(')');
+            }
+            result.append('\n');
+        }
+        return result.toString();
+    }
+
     public static String getSystemInfo() {
         try {
             ensureDataFolderExists();
-            List<String> patients = getAllPatientsSorted();
-            
             return "System Information:\n" +
-                   "  Total Patients: " + patients.size() + "\n" +
+                   "  Total Patients: " + PATIENT_TABLE.size() + "\n" +
                    "  Data Path: " + DATA_PATH + "\n" +
                    "  Status: ✓ Running Smoothly\n" +
                    "  Backend: Pure Java (No C++ Dependencies)";
@@ -259,4 +1188,11 @@ public class CppIntegrationService {
             return "ERROR: " + e.getMessage();
         }
     }
+
+    private static String rootMessage(Throwable e) {
+        while (e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e.getMessage();
+    }
 }
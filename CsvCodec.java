@@ -0,0 +1,348 @@
+package Service;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Comma-separated record codec that works on bytes.
+ *
+ * Reading: scan() records the start/end offsets of each field of a line in
+ * a caller-owned int[], and the parse helpers turn a field straight into
+ * an int or a long. A String is only built for fields that are kept.
+ * Writing: Writer appends fields into a reusable byte buffer, so a record
+ * costs one array copy instead of a chain of String concatenations.
+ *
+ * Fields are trimmed of spaces; quoting is not supported, matching the
+ * files the application writes.
+ */
+public final class CsvCodec {
+
+    public static final byte SEPARATOR = ',';
+
+    /** Returned by parseInt for an empty, non-numeric or out-of-range field. */
+    public static final int INVALID = Integer.MIN_VALUE;
+
+    private CsvCodec() {
+    }
+
+    // ===== READING =====
+
+    /**
+     * Splits buf[from, to) into at most bounds.length / 2 fields, storing
+     * field i as bounds[2i] (start) and bounds[2i + 1] (end). Columns past
+     * the last one requested are ignored. Returns the number of fields found.
+     */
+    public static int scan(byte[] buf, int from, int to, int[] bounds) {
+        int max = bounds.length / 2;
+        int fields = 0;
+        int start = from;
+        while (fields < max) {
+            int end = start;
+            while (end < to && buf[end] != SEPARATOR) {
+                end++;
+            }
+            int s = start;
+            int e = end;
+            while (s < e && buf[s] == ' ') s++;
+            while (e > s && buf[e - 1] == ' ') e--;
+            bounds[2 * fields] = s;
+            bounds[2 * fields + 1] = e;
+            fields++;
+            if (end == to) {
+                break;
+            }
+            start = end + 1;
+        }
+        return fields;
+    }
+
+    /** Index of the next '\n' at or after from, or to if there is none. */
+    public static int lineEnd(byte[] buf, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf[i] == '\n') {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    public static boolean isBlank(byte[] buf, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf[i] != ' ' && buf[i] != '\t' && buf[i] != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Parses an optionally signed decimal int; INVALID if the field is not one. */
+    public static int parseInt(byte[] buf, int start, int end) {
+        boolean negative = start < end && buf[start] == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end || end - i > 10) {
+            return INVALID;
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buf[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return INVALID;
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        return value > Integer.MAX_VALUE || value <= INVALID ? INVALID : (int) value;
+    }
+
+    /** Parses a field of up to 18 digits into a long; -1 if it is anything else. */
+    public static long parseDigits(byte[] buf, int start, int end) {
+        if (start == end || end - start > 18) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = buf[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    public static String string(byte[] buf, int start, int end) {
+        return new String(buf, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    // ===== READING RECORDS HANDED OUT AS STRINGS =====
+
+    /** The first count fields of the record, or null if it has fewer; no regex involved. */
+    public static String[] split(String record, int count) {
+        String[] fields = new String[count];
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            int comma = record.indexOf(SEPARATOR, start);
+            int end = comma < 0 ? record.length() : comma;
+            if (comma < 0 && i < count - 1) {
+                return null;
+            }
+            fields[i] = record.substring(start, end).trim();
+            start = end + 1;
+        }
+        return fields;
+    }
+
+    /** Field number index of the record, or null if it has fewer fields. */
+    public static String field(String record, int index) {
+        int start = 0;
+        for (int i = 0; i < index; i++) {
+            int comma = record.indexOf(SEPARATOR, start);
+            if (comma < 0) {
+                return null;
+            }
+            start = comma + 1;
+        }
+        int comma = record.indexOf(SEPARATOR, start);
+        return record.substring(start, comma < 0 ? record.length() : comma).trim();
+    }
+
+    // ===== LINE BLOCKS =====
+
+    /**
+     * Reads an input stream in blocks of whole lines, so each block can be
+     * parsed on its own (for example on another thread).
+     */
+    public static class LineReader implements Closeable {
+
+        private final InputStream in;
+        private byte[] buffer;
+        private int start;
+        private int end;
+        private boolean eof;
+
+        public LineReader(InputStream in, int bufferSize) {
+            this.in = in;
+            this.buffer = new byte[Math.max(1024, bufferSize)];
+        }
+
+        /**
+         * Returns the next block of complete lines of about maxBytes (longer
+         * only if a single line is), or null at the end of the input.
+         */
+        public byte[] nextBlock(int maxBytes) throws IOException {
+            int limit = Math.max(1, maxBytes);
+            while (true) {
+                while (!eof && end - start < limit) {
+                    fill(limit);
+                }
+                int available = end - start;
+                if (available == 0) {
+                    return null;
+                }
+
+                int cut = -1;
+                if (eof && available <= limit) {
+                    cut = end;
+                } else {
+                    for (int i = start + Math.min(available, limit) - 1; i >= start; i--) {
+                        if (buffer[i] == '\n') {
+                            cut = i + 1;
+                            break;
+                        }
+                    }
+                }
+                if (cut < 0) {
+                    limit *= 2; // one line longer than the block; read further
+                    continue;
+                }
+
+                byte[] block = Arrays.copyOfRange(buffer, start, cut);
+                start = cut;
+                return block;
+            }
+        }
+
+        private void fill(int wanted) throws IOException {
+            if (end == buffer.length || buffer.length - start < wanted) {
+                if (start > 0) {
+                    System.arraycopy(buffer, start, buffer, 0, end - start);
+                    end -= start;
+                    start = 0;
+                }
+                if (end == buffer.length || buffer.length < wanted) {
+                    buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, wanted));
+                }
+            }
+            int read = in.read(buffer, end, buffer.length - end);
+            if (read < 0) {
+                eof = true;
+            } else {
+                end += read;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    // ===== WRITING =====
+
+    /** Builds records field by field into a growable byte buffer. */
+    public static class Writer {
+
+        private byte[] buffer;
+        private int size;
+        private boolean recordStart = true;
+
+        public Writer(int capacity) {
+            buffer = new byte[Math.max(16, capacity)];
+        }
+
+        public Writer field(long value) {
+            separator();
+            if (value < 0) {
+                if (value == Long.MIN_VALUE) {
+                    return raw(Long.toString(value));
+                }
+                ensure(1);
+                buffer[size++] = '-';
+                value = -value;
+            }
+            int digits = 1;
+            for (long v = value; v >= 10; v /= 10) {
+                digits++;
+            }
+            ensure(digits);
+            for (int i = size + digits - 1; i >= size; i--) {
+                buffer[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            size += digits;
+            return this;
+        }
+
+        public Writer field(String value) {
+            separator();
+            return raw(value);
+        }
+
+        public Writer field(byte[] src, int offset, int length) {
+            separator();
+            ensure(length);
+            System.arraycopy(src, offset, buffer, size, length);
+            size += length;
+            return this;
+        }
+
+        /** Copies length bytes from the source's current position. */
+        public Writer field(ByteBuffer src, int length) {
+            separator();
+            ensure(length);
+            src.get(buffer, size, length);
+            size += length;
+            return this;
+        }
+
+        public Writer endRecord() {
+            ensure(1);
+            buffer[size++] = '\n';
+            recordStart = true;
+            return this;
+        }
+
+        public Writer reset() {
+            size = 0;
+            recordStart = true;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(buffer, 0, size);
+        }
+
+        @Override
+        public String toString() {
+            return new String(buffer, 0, size, StandardCharsets.UTF_8);
+        }
+
+        private void separator() {
+            if (!recordStart) {
+                ensure(1);
+                buffer[size++] = SEPARATOR;
+            }
+            recordStart = false;
+        }
+
+        // ASCII goes straight into the buffer; anything else is encoded once
+        private Writer raw(String value) {
+            int length = value.length();
+            ensure(length);
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c >= 0x80) {
+                    byte[] encoded = value.substring(i).getBytes(StandardCharsets.UTF_8);
+                    ensure(encoded.length);
+                    System.arraycopy(encoded, 0, buffer, size, encoded.length);
+                    size += encoded.length;
+                    return this;
+                }
+                buffer[size++] = (byte) c;
+            }
+            return this;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+}
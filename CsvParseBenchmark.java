@@ -0,0 +1,121 @@
+package Service;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Patient CSV parsing: String.split, as the importers did before CsvCodec,
+ * against CsvCodec.split on Strings and CsvCodec.scan on bytes.
+ *
+ * Each variant reads every field of "id,name,age,disease,phone" records
+ * from an in-memory file, so disk speed does not enter. In the JMH manner
+ * the variants get warmup iterations that are not measured, then timed
+ * iterations reported as mean and standard deviation; every parsed value
+ * feeds a checksum so the JIT cannot drop the work.
+ *
+ *   javac -d out *.java && java -cp out Service.CsvParseBenchmark [rows] [iterations]
+ */
+public class CsvParseBenchmark {
+
+    private static final String[] DISEASES = {"Flu", "Diabetes", "Hypertension", "Asthma", "Migraine"};
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        byte[] file = generate(rows);
+
+        System.out.printf("%,d rows, %,d bytes%n", rows, file.length);
+        System.out.printf("%-20s %12s %10s %12s%n", "Benchmark", "ms/op", "error", "ns/row");
+        run("String.split", iterations, rows, () -> stringSplit(file));
+        run("CsvCodec.split", iterations, rows, () -> codecSplit(file));
+        run("CsvCodec.scan", iterations, rows, () -> codecScan(file));
+    }
+
+    private interface Parse {
+        long run() throws IOException;
+    }
+
+    private static void run(String name, int iterations, int rows, Parse parse) throws IOException {
+        long check = parse.run();
+        for (int i = 0; i < iterations; i++) {
+            if (parse.run() != check) {
+                throw new IllegalStateException(name + " is not deterministic");
+            }
+        }
+        double[] millis = new double[iterations];
+        double mean = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            check ^= parse.run();
+            millis[i] = (System.nanoTime() - start) / 1e6;
+            mean += millis[i] / iterations;
+        }
+        double variance = 0;
+        for (double m : millis) {
+            variance += (m - mean) * (m - mean) / Math.max(1, iterations - 1);
+        }
+        System.out.printf("%-20s %12.2f %10.2f %12.1f   (checksum %x)%n",
+                name, mean, Math.sqrt(variance), mean * 1e6 / rows, check);
+    }
+
+    // ===== VARIANTS =====
+
+    private static long stringSplit(byte[] file) throws IOException {
+        long sum = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",");
+                sum += Integer.parseInt(parts[0].trim()) + Integer.parseInt(parts[2].trim());
+                sum += parts[1].trim().length() + parts[3].trim().length();
+                sum += Long.parseLong(parts[4].trim());
+            }
+        }
+        return sum;
+    }
+
+    private static long codecSplit(byte[] file) throws IOException {
+        long sum = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = CsvCodec.split(line, 5);
+                sum += Integer.parseInt(parts[0]) + Integer.parseInt(parts[2]);
+                sum += parts[1].length() + parts[3].length();
+                sum += Long.parseLong(parts[4]);
+            }
+        }
+        return sum;
+    }
+
+    private static long codecScan(byte[] file) {
+        long sum = 0;
+        int[] bounds = new int[10];
+        for (int from = 0; from < file.length; ) {
+            int end = CsvCodec.lineEnd(file, from, file.length);
+            int to = end > from && file[end - 1] == '\r' ? end - 1 : end;
+            CsvCodec.scan(file, from, to, bounds);
+            sum += CsvCodec.parseInt(file, bounds[0], bounds[1]) + CsvCodec.parseInt(file, bounds[4], bounds[5]);
+            sum += CsvCodec.string(file, bounds[2], bounds[3]).length()
+                    + CsvCodec.string(file, bounds[6], bounds[7]).length();
+            sum += CsvCodec.parseDigits(file, bounds[8], bounds[9]);
+            from = end + 1;
+        }
+        return sum;
+    }
+
+    private static byte[] generate(int rows) {
+        StringBuilder out = new StringBuilder(rows * 40);
+        for (int i = 0; i < rows; i++) {
+            out.append(i + 1).append(",Patient ").append(i).append(',').append(18 + i % 70).append(',')
+               .append(DISEASES[i % DISEASES.length]).append(",0300").append(String.format("%07d", i))
+               .append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
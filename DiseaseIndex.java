@@ -0,0 +1,99 @@
+package Service;
+
+import model.PatientTable;
+import model.StringDictionary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Inverted index from disease to the ids of the patients who have it, one
+ * CompressedBitmap per disease dictionary code of a PatientTable.
+ *
+ * A filter ORs the bitmaps of the diseases whose text matches, so its
+ * cost depends on the number of distinct diseases and of matching
+ * patients, not on how many patients are stored. Each patient has one
+ * disease, so the bitmaps are disjoint and a count is a sum of
+ * cardinalities.
+ */
+class DiseaseIndex {
+
+    private final PatientTable table;
+    private final List<CompressedBitmap> byDisease = new ArrayList<>();   // indexed by dictionary code
+
+    private DiseaseIndex(PatientTable table) {
+        this.table = table;
+    }
+
+    /** Indexes every row already in the table. */
+    static DiseaseIndex build(PatientTable table) {
+        DiseaseIndex index = new DiseaseIndex(table);
+        for (int row = 0, size = table.size(); row < size; row++) {
+            index.add(row);
+        }
+        return index;
+    }
+
+    /** Indexes a newly added row. */
+    synchronized void add(int row) {
+        int code = table.diseaseCode(row);
+        while (byDisease.size() <= code) {
+            byDisease.add(new CompressedBitmap());
+        }
+        byDisease.get(code).add(table.id(row));
+    }
+
+    synchronized void clear() {
+        byDisease.clear();
+    }
+
+    // ===== QUERIES =====
+
+    /** Ids of the patients whose disease contains the term, ignoring case. */
+    synchronized CompressedBitmap matching(String term) {
+        CompressedBitmap result = new CompressedBitmap();
+        for (int code : codesMatching(term)) {
+            result = result.or(byDisease.get(code));
+        }
+        return result;
+    }
+
+    /** Number of patients whose disease contains the term, ignoring case. */
+    synchronized int count(String term) {
+        int total = 0;
+        for (int code : codesMatching(term)) {
+            total += byDisease.get(code).cardinality();
+        }
+        return total;
+    }
+
+    /** Patients per disease dictionary code. */
+    synchronized int[] counts() {
+        int[] counts = new int[byDisease.size()];
+        for (int code = 0; code < counts.length; code++) {
+            counts[code] = byDisease.get(code).cardinality();
+        }
+        return counts;
+    }
+
+    /** Ids of the patients with the same disease as the row, the row's own id included. */
+    synchronized CompressedBitmap sameDisease(int row) {
+        int code = table.diseaseCode(row);
+        return code < byDisease.size() ? byDisease.get(code).copy() : new CompressedBitmap();
+    }
+
+    // Codes of the indexed diseases whose text contains the term
+    private List<Integer> codesMatching(String term) {
+        String wanted = term.trim().toLowerCase(Locale.ROOT);
+        StringDictionary diseases = table.diseaseDictionary();
+        List<Integer> codes = new ArrayList<>();
+        for (int code = 0; code < byDisease.size(); code++) {
+            if (!byDisease.get(code).isEmpty()
+                    && diseases.decode(code).toLowerCase(Locale.ROOT).contains(wanted)) {
+                codes.add(code);
+            }
+        }
+        return codes;
+    }
+}
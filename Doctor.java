@@ -5,13 +5,20 @@ public class Doctor {
     private String name;
     private String specialization;
     private int appointmentCount;
+    private int capacity;
 
     // Constructor
     public Doctor(int id, String name, String specialization, int appointmentCount) {
+        this(id, name, specialization, appointmentCount, 0);
+    }
+
+    // capacity: appointments the doctor can hold at once; 0 when not set
+    public Doctor(int id, String name, String specialization, int appointmentCount, int capacity) {
         this.id = id;
         this.name = name;
         this.specialization = specialization;
         this.appointmentCount = appointmentCount;
+        this.capacity = capacity;
     }
 
     // Getters and Setters
@@ -27,6 +34,14 @@ public class Doctor {
     public int getAppointmentCount() { return appointmentCount; }
     public void setAppointmentCount(int appointmentCount) { this.appointmentCount = appointmentCount; }
 
+    public int getCapacity() { return capacity; }
+    public void setCapacity(int capacity) { this.capacity = capacity; }
+
+    /** Load as a percentage of capacity; 0 when no capacity is set. */
+    public int getLoadPercent() {
+        return capacity <= 0 ? 0 : (int) (appointmentCount * 100L / capacity);
+    }
+
     @Override
     public String toString() {
         return "Dr. " + name + " (" + specialization + ") - Load: " + appointmentCount;
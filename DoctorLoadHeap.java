@@ -0,0 +1,129 @@
+package Service;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Indexed min-heap of one specialization's doctors, ordered by open load
+ * (ties by id). Each entry remembers its heap position, so a load change
+ * re-sifts that one doctor in O(log n) instead of rebuilding the heap.
+ *
+ * Load counters of the doctors in the heap are only changed through
+ * adjust() and claim(), under the heap's lock, so the ordering always
+ * matches the counters; readers may still read the counters without it.
+ */
+class DoctorLoadHeap {
+
+    private DoctorRegistry.Entry[] heap = new DoctorRegistry.Entry[8];
+    private int size;
+
+    synchronized void add(DoctorRegistry.Entry entry) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        heap[size] = entry;
+        entry.heapIndex = size;
+        siftUp(size++);
+    }
+
+    /** Adds delta to the doctor's load and moves it to its new place. */
+    synchronized void adjust(DoctorRegistry.Entry entry, int delta) {
+        entry.load.addAndGet(delta);
+        int i = entry.heapIndex;
+        if (delta < 0) {
+            siftUp(i);
+        } else {
+            siftDown(i);
+        }
+    }
+
+    /**
+     * Takes one unit of load on the least-loaded doctor that the filter
+     * accepts and returns it, or null if it accepts none. Rejected doctors
+     * are skipped by walking the heap best-first, so only the doctors
+     * ahead of the one chosen are examined.
+     */
+    synchronized DoctorRegistry.Entry claim(Predicate<DoctorRegistry.Entry> accept) {
+        if (size == 0) {
+            return null;
+        }
+        DoctorRegistry.Entry chosen = null;
+        if (accept.test(heap[0])) {
+            chosen = heap[0];
+        } else {
+            PriorityQueue<DoctorRegistry.Entry> frontier = new PriorityQueue<>(DoctorLoadHeap::compare);
+            pushChildren(frontier, 0);
+            while (!frontier.isEmpty()) {
+                DoctorRegistry.Entry next = frontier.poll();
+                if (accept.test(next)) {
+                    chosen = next;
+                    break;
+                }
+                pushChildren(frontier, next.heapIndex);
+            }
+        }
+        if (chosen != null) {
+            adjust(chosen, 1);
+        }
+        return chosen;
+    }
+
+    /** The least-loaded doctor without claiming it, or null if empty. */
+    synchronized DoctorRegistry.Entry peek() {
+        return size == 0 ? null : heap[0];
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    // ===== HEAP ORDER =====
+    private void pushChildren(PriorityQueue<DoctorRegistry.Entry> frontier, int i) {
+        for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++) {
+            frontier.add(heap[child]);
+        }
+    }
+
+    private void siftUp(int i) {
+        DoctorRegistry.Entry entry = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (compare(heap[parent], entry) <= 0) {
+                break;
+            }
+            place(heap[parent], i);
+            i = parent;
+        }
+        place(entry, i);
+    }
+
+    private void siftDown(int i) {
+        DoctorRegistry.Entry entry = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && compare(heap[child + 1], heap[child]) < 0) {
+                child++;
+            }
+            if (compare(entry, heap[child]) <= 0) {
+                break;
+            }
+            place(heap[child], i);
+            i = child;
+        }
+        place(entry, i);
+    }
+
+    private void place(DoctorRegistry.Entry entry, int i) {
+        heap[i] = entry;
+        entry.heapIndex = i;
+    }
+
+    private static int compare(DoctorRegistry.Entry a, DoctorRegistry.Entry b) {
+        int byLoad = Integer.compare(a.load.get(), b.load.get());
+        return byLoad != 0 ? byLoad : Integer.compare(a.id, b.id);
+    }
+}
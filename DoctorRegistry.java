@@ -0,0 +1,192 @@
+package Service;
+
+import model.Doctor;
+import model.StringDictionary;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Registered doctors, kept in doctors.txt as "id,name,specialization,capacity"
+ * lines that are only ever appended.
+ *
+ * Doctors are indexed by id and, through a StringDictionary code, by
+ * specialization. Each doctor carries an atomic load counter (open
+ * appointments) that bookings and status changes adjust as they happen,
+ * so a load report reads one counter per doctor instead of recounting
+ * appointments. Each specialization also keeps its doctors in a
+ * DoctorLoadHeap, so the least-loaded one is found in O(log n).
+ */
+class DoctorRegistry {
+
+    /** One doctor; the load counter is the only mutable part. */
+    static final class Entry {
+        final int id;
+        final String name;
+        final int specialization;
+        final int capacity;
+        final AtomicInteger load = new AtomicInteger();
+        int heapIndex = -1; // guarded by the specialization's DoctorLoadHeap
+
+        Entry(int id, String name, int specialization, int capacity) {
+            this.id = id;
+            this.name = name;
+            this.specialization = specialization;
+            this.capacity = capacity;
+        }
+    }
+
+    static final String DEFAULT_SPECIALIZATION = "General Medicine";
+
+    private final Path file;
+    private final StringDictionary specializations = new StringDictionary();
+    private final Map<Integer, Entry> byId = new ConcurrentHashMap<>();
+    private final List<Entry> all = new CopyOnWriteArrayList<>();
+    private final List<List<Entry>> bySpecialization = new CopyOnWriteArrayList<>(); // indexed by dictionary code
+    private final List<DoctorLoadHeap> heaps = new CopyOnWriteArrayList<>();          // indexed by dictionary code
+    private int nextId = 1;
+
+    private DoctorRegistry(Path file) {
+        this.file = file;
+    }
+
+    static DoctorRegistry open(Path file) throws IOException {
+        DoctorRegistry registry = new DoctorRegistry(file);
+        if (Files.exists(file)) {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                String[] fields = CsvCodec.split(line, 4);
+                if (fields == null) {
+                    continue; // skip malformed line
+                }
+                try {
+                    registry.index(Integer.parseInt(fields[0]), fields[1], fields[2], Integer.parseInt(fields[3]));
+                } catch (NumberFormatException e) {
+                    // skip malformed line
+                }
+            }
+        }
+        return registry;
+    }
+
+    // ===== REGISTRATION =====
+
+    /** Registers a new doctor under the next free id. */
+    synchronized Entry add(String name, String specialization, int capacity) throws IOException {
+        return register(nextId, name, specialization, capacity);
+    }
+
+    /**
+     * Lists a doctor that stored appointments refer to but that was never
+     * registered, so every booked doctor id is shown and tracked. The entry
+     * is kept in memory only and rebuilt from the appointments at startup;
+     * doctors.txt holds registered doctors alone.
+     */
+    synchronized Entry addPlaceholder(int id) {
+        Entry existing = byId.get(id);
+        return existing != null ? existing : index(id, "Doctor " + id, DEFAULT_SPECIALIZATION, 0);
+    }
+
+    private Entry register(int id, String name, String specialization, int capacity) throws IOException {
+        String line = new CsvCodec.Writer(64).field(id).field(name.trim()).field(specialization.trim())
+                .field(capacity).endRecord().toString();
+        Files.write(file, line.getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return index(id, name.trim(), specialization.trim(), capacity);
+    }
+
+    private Entry index(int id, String name, String specialization, int capacity) {
+        Entry entry = new Entry(id, name, specializations.encode(specialization), capacity);
+        while (bySpecialization.size() <= entry.specialization) {
+            bySpecialization.add(new CopyOnWriteArrayList<>());
+            heaps.add(new DoctorLoadHeap());
+        }
+        if (byId.putIfAbsent(id, entry) != null) {
+            return byId.get(id); // a later line repeating an id is ignored
+        }
+        all.add(entry);
+        bySpecialization.get(entry.specialization).add(entry);
+        heaps.get(entry.specialization).add(entry);
+        nextId = Math.max(nextId, id + 1);
+        return entry;
+    }
+
+    // ===== LOOKUP =====
+    Entry get(int id) {
+        return byId.get(id);
+    }
+
+    int size() {
+        return all.size();
+    }
+
+    List<Entry> entries() {
+        return all;
+    }
+
+    /** Doctors of the specialization in registration order; empty if none. */
+    List<Entry> withSpecialization(String specialization) {
+        int code = specializations.codeOf(specialization.trim());
+        return code < 0 || code >= bySpecialization.size()
+                ? Collections.<Entry>emptyList() : bySpecialization.get(code);
+    }
+
+    /** Doctors grouped by specialization, one list per specialization. */
+    List<List<Entry>> groups() {
+        return bySpecialization;
+    }
+
+    String specializationName(int code) {
+        return specializations.decode(code);
+    }
+
+    // ===== LOAD =====
+
+    /** Adds delta to the doctor's open-appointment count; unknown ids are ignored. */
+    void adjustLoad(int doctorId, int delta) {
+        Entry entry = byId.get(doctorId);
+        if (entry != null) {
+            heaps.get(entry.specialization).adjust(entry, delta);
+        }
+    }
+
+    /**
+     * Adds one to the load of the least-loaded doctor of the specialization
+     * that the filter accepts and returns it; null if there is none.
+     */
+    Entry claimLeastLoaded(String specialization, Predicate<Entry> accept) {
+        DoctorLoadHeap heap = heapOf(specialization);
+        return heap == null ? null : heap.claim(accept);
+    }
+
+    /** The least-loaded doctor of the specialization, or null if it has none. */
+    Entry leastLoaded(String specialization) {
+        DoctorLoadHeap heap = heapOf(specialization);
+        return heap == null ? null : heap.peek();
+    }
+
+    private DoctorLoadHeap heapOf(String specialization) {
+        int code = specializations.codeOf(specialization.trim());
+        return code < 0 || code >= heaps.size() ? null : heaps.get(code);
+    }
+
+    /** The doctor with its current load. */
+    Doctor toDoctor(Entry entry) {
+        return new Doctor(entry.id, entry.name, specializations.decode(entry.specialization),
+                entry.load.get(), entry.capacity);
+    }
+
+    /** Every doctor with its current load, in registration order; one counter read per doctor. */
+    List<Doctor> snapshot() {
+        List<Doctor> doctors = new ArrayList<>(all.size());
+        for (Entry entry : all) {
+            doctors.add(toDoctor(entry));
+        }
+        return doctors;
+    }
+}
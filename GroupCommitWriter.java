@@ -0,0 +1,275 @@
+package Service;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Single background writer for an append-only file.
+ * Records submitted by any thread are queued, and every pass of the
+ * writer thread turns all pending records into one write and at most
+ * one force(), so bursts of addPatient/scheduleAppointment calls share
+ * a syscall sequence instead of opening the file once per record.
+ *
+ * A failed write or force leaves the file's tail unknown, and offsets
+ * past it have already been handed out, so the writer fails for good:
+ * queued and later records are rejected rather than written after a
+ * hole that recovery would cut them off at. Only truncate() clears the
+ * failure, since it puts the file back in a known state.
+ */
+public class GroupCommitWriter implements Closeable {
+
+    /** When a record's future completes. */
+    public enum Durability {
+        FSYNC_EACH,      // after the batch holding the record is forced to disk
+        FSYNC_INTERVAL,  // after the next periodic force
+        OS_BUFFERED;     // after the write call; the OS decides when to flush
+
+        /** Reads medico.durability (fsync, fsync-interval, buffered); defaults to buffered. */
+        public static Durability fromSystemProperty() {
+            String value = System.getProperty("medico.durability", "buffered");
+            switch (value.trim().toLowerCase()) {
+                case "fsync": return FSYNC_EACH;
+                case "fsync-interval": return FSYNC_INTERVAL;
+                default: return OS_BUFFERED;
+            }
+        }
+    }
+
+    private static final class Pending {
+        final ByteBuffer data;
+        final long offset;
+        final int length;
+        final CompletableFuture<Long> done = new CompletableFuture<>();
+
+        Pending(ByteBuffer data, long offset) {
+            this.data = data;
+            this.offset = offset;
+            this.length = data.remaining();
+        }
+    }
+
+    private static final long IDLE_POLL_MILLIS = 200;
+
+    private final FileChannel channel;
+    private final Durability durability;
+    private final long fsyncIntervalMillis;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final List<Pending> unsynced = new ArrayList<>();
+    private final Thread thread;
+
+    private long reservedEnd;   // end of the last submitted record
+    private long writtenEnd;    // end of the last record handed to the OS
+    private IOException failure;   // set by a failed write or force; cleared by truncate
+    private boolean truncating;
+    private volatile boolean running = true;
+
+    public GroupCommitWriter(String name, FileChannel channel,
+                             Durability durability, long fsyncIntervalMillis) throws IOException {
+        this.channel = channel;
+        this.durability = durability;
+        this.fsyncIntervalMillis = Math.max(1, fsyncIntervalMillis);
+        this.reservedEnd = channel.size();
+        this.writtenEnd = reservedEnd;
+
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    // ===== SUBMISSION =====
+
+    /** Reserves the next offset for the record and queues it; the future yields that offset. */
+    public synchronized CompletableFuture<Long> append(ByteBuffer record) {
+        try {
+            while (truncating) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failed(new InterruptedIOException("Interrupted while waiting for truncate"));
+        }
+        if (!running) {
+            return failed(new IOException("Writer is closed"));
+        }
+        if (failure != null) {
+            return failed(new IOException("Writer failed on an earlier write", failure));
+        }
+        Pending pending = new Pending(record, reservedEnd);
+        reservedEnd += pending.length;
+        queue.add(pending);
+        return pending.done;
+    }
+
+    /** Offset the next appended record will get. */
+    public synchronized long position() {
+        return reservedEnd;
+    }
+
+    /** Blocks until every byte before the given position has been written. */
+    public synchronized void awaitWritten(long position) throws IOException {
+        try {
+            while (writtenEnd < position && running) {
+                if (failure != null) {
+                    throw new IOException("Writer failed before position " + position, failure);
+                }
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for writer");
+        }
+    }
+
+    public synchronized long writtenPosition() {
+        return writtenEnd;
+    }
+
+    /**
+     * Waits for pending records, then truncates the file to the given size.
+     * Appends wait for the whole truncate, so none can be given an offset
+     * that the truncate then wipes.
+     */
+    public synchronized void truncate(long size) throws IOException {
+        try {
+            while (truncating) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for truncate");
+        }
+        truncating = true;
+        try {
+            if (failure == null) {
+                awaitWritten(reservedEnd);
+            }
+            channel.truncate(size);
+            reservedEnd = size;
+            writtenEnd = size;
+            failure = null;
+        } finally {
+            truncating = false;
+            notifyAll();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            running = false;
+            notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ===== WRITER THREAD =====
+    private void run() {
+        List<Pending> batch = new ArrayList<>();
+        long lastForce = System.currentTimeMillis();
+
+        while (running || !queue.isEmpty()) {
+            // Never interrupted: an interrupt would close the FileChannel mid-write
+            long timeout = durability == Durability.FSYNC_INTERVAL && !unsynced.isEmpty()
+                    ? Math.max(1, lastForce + fsyncIntervalMillis - System.currentTimeMillis())
+                    : IDLE_POLL_MILLIS;
+            try {
+                Pending first = queue.poll(timeout, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch);
+                    writeBatch(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                // keep draining; close() stops the loop
+            }
+
+            if (durability == Durability.FSYNC_INTERVAL && !unsynced.isEmpty()
+                    && (System.currentTimeMillis() - lastForce >= fsyncIntervalMillis || !running)) {
+                forceUnsynced();
+                lastForce = System.currentTimeMillis();
+            }
+        }
+    }
+
+    private void writeBatch(List<Pending> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+        long remaining = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = batch.get(i).data;
+            remaining += buffers[i].remaining();
+        }
+
+        try {
+            channel.position(batch.get(0).offset);
+            while (remaining > 0) {
+                remaining -= channel.write(buffers);
+            }
+            if (durability == Durability.FSYNC_EACH) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            fail(e, batch);
+            return;
+        }
+
+        advanceWritten(batch);
+        if (durability == Durability.FSYNC_INTERVAL) {
+            unsynced.addAll(batch);
+        } else {
+            for (Pending pending : batch) {
+                pending.done.complete(pending.offset);
+            }
+        }
+    }
+
+    private synchronized void advanceWritten(List<Pending> batch) {
+        Pending last = batch.get(batch.size() - 1);
+        writtenEnd = last.offset + last.length;
+        notifyAll();
+    }
+
+    private void forceUnsynced() {
+        try {
+            channel.force(false);
+            for (Pending pending : unsynced) {
+                pending.done.complete(pending.offset);
+            }
+            unsynced.clear();
+        } catch (IOException e) {
+            fail(e, Collections.emptyList());
+        }
+    }
+
+    // Stops the writer: anything unsynced, the batch and everything queued behind it fail with the cause
+    private void fail(IOException cause, List<Pending> batch) {
+        List<Pending> rejected = new ArrayList<>(unsynced);
+        unsynced.clear();
+        rejected.addAll(batch);
+        synchronized (this) {
+            failure = cause;
+            queue.drainTo(rejected);
+            notifyAll();
+        }
+        // Outside the lock: callbacks may take locks whose holders are waiting to append
+        for (Pending pending : rejected) {
+            pending.done.completeExceptionally(cause);
+        }
+    }
+
+    private static CompletableFuture<Long> failed(IOException cause) {
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        future.completeExceptionally(cause);
+        return future;
+    }
+}
@@ -0,0 +1,145 @@
+package Service;
+
+import model.Appointment;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Plans moves of future appointments from the most-loaded to the
+ * least-loaded doctors of each specialization.
+ *
+ * Within a specialization doctors are kept ordered by open load; the
+ * most-loaded doctor gives one appointment to the least-loaded doctor
+ * that is free at its time, as long as their loads differ by two or
+ * more. Every move closes the gap by two, so the plan uses as few
+ * moves as even loads need when slots allow. A doctor with nothing left
+ * that anyone can take stops giving. Slots handed out by the plan are
+ * tracked on the side, so two moves never land in the same slot.
+ *
+ * Specializations share no doctors, so they are planned in parallel.
+ */
+class LoadBalancer {
+
+    private static final class State {
+        final DoctorRegistry.Entry doctor;
+        final List<Appointment> movable;
+        int load;
+
+        State(DoctorRegistry.Entry doctor, List<Appointment> movable) {
+            this.doctor = doctor;
+            this.movable = movable;
+            this.load = doctor.load.get();
+        }
+    }
+
+    private static final Comparator<State> BY_LOAD =
+            Comparator.<State>comparingInt(s -> s.load).thenComparingInt(s -> s.doctor.id);
+
+    private LoadBalancer() {
+    }
+
+    /**
+     * Plans moves among the registered doctors. future holds the
+     * appointments that may move; availability is read but not changed.
+     */
+    static RebalancePlan plan(DoctorRegistry doctors, List<Appointment> future,
+                              SlotAvailability availability, ForkJoinPool pool) {
+        Map<Integer, List<Appointment>> byDoctor = new HashMap<>();
+        for (Appointment appointment : future) {
+            byDoctor.computeIfAbsent(appointment.getDoctorId(), k -> new ArrayList<>()).add(appointment);
+        }
+
+        List<List<RebalancePlan.Move>> perSpecialization;
+        try {
+            perSpecialization = pool.submit(() -> doctors.groups().parallelStream()
+                    .map(group -> planSpecialization(group, byDoctor, availability))
+                    .collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while planning", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Load planning failed", e.getCause());
+        }
+
+        List<RebalancePlan.Move> moves = new ArrayList<>();
+        for (List<RebalancePlan.Move> part : perSpecialization) {
+            moves.addAll(part);
+        }
+        Map<Integer, Integer> before = new LinkedHashMap<>();
+        for (DoctorRegistry.Entry doctor : doctors.entries()) {
+            before.put(doctor.id, doctor.load.get());
+        }
+        Map<Integer, Integer> after = new LinkedHashMap<>(before);
+        for (RebalancePlan.Move move : moves) {
+            after.merge(move.getFromDoctorId(), -1, Integer::sum);
+            after.merge(move.getToDoctorId(), 1, Integer::sum);
+        }
+        return new RebalancePlan(moves, before, after);
+    }
+
+    private static List<RebalancePlan.Move> planSpecialization(List<DoctorRegistry.Entry> group,
+                                                               Map<Integer, List<Appointment>> byDoctor,
+                                                               SlotAvailability availability) {
+        List<RebalancePlan.Move> moves = new ArrayList<>();
+        if (group.size() < 2) {
+            return moves;
+        }
+        TreeSet<State> order = new TreeSet<>(BY_LOAD);
+        for (DoctorRegistry.Entry doctor : group) {
+            order.add(new State(doctor, new ArrayList<>(byDoctor.getOrDefault(doctor.id, Collections.emptyList()))));
+        }
+        SlotAvailability planned = new SlotAvailability(); // slots receivers get from this plan
+
+        while (order.size() >= 2 && order.last().load - order.first().load >= 2) {
+            State donor = order.last();
+            boolean moved = false;
+            for (State receiver : order) {
+                if (donor.load - receiver.load < 2) {
+                    break;
+                }
+                int index = findMovable(donor, receiver.doctor.id, availability, planned);
+                if (index >= 0) {
+                    Appointment appointment = donor.movable.remove(index);
+                    int firstSlot = SlotAvailability.firstSlot(appointment.getStartMinute());
+                    int slotCount = SlotAvailability.slotCount(appointment.getStartMinute(),
+                            appointment.getDurationMinutes());
+                    planned.book(receiver.doctor.id, appointment.getEpochDay(), firstSlot, slotCount);
+                    moves.add(new RebalancePlan.Move(appointment.getId(), appointment.getPatientId(),
+                            donor.doctor.id, receiver.doctor.id, appointment.getEpochDay(),
+                            appointment.getStartMinute(), appointment.getDurationMinutes()));
+
+                    order.remove(donor);
+                    order.remove(receiver);
+                    donor.load--;
+                    receiver.load++;
+                    order.add(donor);
+                    order.add(receiver);
+                    moved = true;
+                    break;
+                }
+            }
+            if (!moved) {
+                order.remove(donor); // nothing it holds fits any lighter doctor
+            }
+        }
+        return moves;
+    }
+
+    // Index of the first of the donor's appointments the receiver is free for, or -1
+    private static int findMovable(State donor, int receiverId,
+                                   SlotAvailability availability, SlotAvailability planned) {
+        for (int i = 0; i < donor.movable.size(); i++) {
+            Appointment appointment = donor.movable.get(i);
+            int firstSlot = SlotAvailability.firstSlot(appointment.getStartMinute());
+            int slotCount = SlotAvailability.slotCount(appointment.getStartMinute(), appointment.getDurationMinutes());
+            if (availability.isFree(receiverId, appointment.getEpochDay(), firstSlot, slotCount)
+                    && planned.isFree(receiverId, appointment.getEpochDay(), firstSlot, slotCount)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
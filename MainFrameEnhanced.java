@@ -1,6 +1,13 @@
 package View;
 
+import Service.AnalyticsSnapshot;
+import Service.BulkPatientImporter;
 import Service.CppIntegrationService;
+import Service.CsvCodec;
+import Service.PatientCursor;
+import Service.RebalancePlan;
+import model.Appointment;
+import model.Doctor;
 import javax.swing.*;
 import javax.swing.border.*;
 import javax.swing.table.*;
@@ -35,7 +42,6 @@ public class MainFrameEnhanced extends JFrame {
     private JPanel sidebarPanel;
     private JButton currentActiveButton;
     private ExecutorService executor = Executors.newFixedThreadPool(3);
-    private int nextPatientId = 1;
 
     public MainFrameEnhanced() {
         setTitle("MEDICO - Advanced Medical Management System");
@@ -320,10 +326,17 @@ public class MainFrameEnhanced extends JFrame {
         statsGrid.setBackground(DARK_NAVY);
         statsGrid.setMaximumSize(new Dimension(Integer.MAX_VALUE, 140));
 
-        statsGrid.add(createModernStatCard("Total Patients", "1,247", "↑ 12%", ELECTRIC_BLUE));
-        statsGrid.add(createModernStatCard("Active Doctors", "28", "↑ 4%", EMERALD));
-        statsGrid.add(createModernStatCard("Appointments", "156", "Today", AMBER));
-        statsGrid.add(createModernStatCard("Critical Cases", "7", "Urgent", ROSE));
+        // Running totals; reading them does not touch the patient or appointment stores
+        AnalyticsSnapshot stats = CppIntegrationService.getAnalyticsSnapshot();
+        String today = java.time.LocalDate.now().toString();
+        statsGrid.add(createModernStatCard("Total Patients", String.format("%,d", stats.getPatients()),
+                "Registered", ELECTRIC_BLUE));
+        statsGrid.add(createModernStatCard("Active Doctors", String.format("%,d", CppIntegrationService.getDoctors().size()),
+                "Registered", EMERALD));
+        statsGrid.add(createModernStatCard("Appointments", String.format("%,d", stats.getAppointmentsOn(today)),
+                "Today", AMBER));
+        statsGrid.add(createModernStatCard("Critical Cases",
+                String.format("%,d", CppIntegrationService.countPatientsByPriority("CRITICAL")), "Urgent", ROSE));
 
         mainContent.add(statsGrid);
         mainContent.add(Box.createVerticalStrut(30));
@@ -578,7 +591,7 @@ public class MainFrameEnhanced extends JFrame {
         addBtn.addActionListener(e -> {
             try {
                 String result = CppIntegrationService.addPatient(
-                        nextPatientId++, nameField.getText(),
+                        nameField.getText(),
                         Integer.parseInt(ageField.getText()),
                         diseaseField.getText(), phoneField.getText()
                 );
@@ -598,12 +611,11 @@ public class MainFrameEnhanced extends JFrame {
         csvBtn.addActionListener(e -> uploadCSV());
         refreshBtn.addActionListener(e -> showPatients());
         clearBtn.addActionListener(e -> {
-            try {
-                Files.deleteIfExists(Paths.get("DataFiles/patients_data.txt"));
-                showModernMessage("All patients cleared successfully!", true);
+            String result = CppIntegrationService.clearAllPatients();
+            showModernMessage(result.contains("SUCCESS") ? "All patients cleared successfully!" : result,
+                    result.contains("SUCCESS"));
+            if (result.contains("SUCCESS")) {
                 showPatients();
-            } catch (Exception ex) {
-                showModernMessage("Error: " + ex.getMessage(), false);
             }
         });
 
@@ -657,17 +669,20 @@ public class MainFrameEnhanced extends JFrame {
 
         executor.execute(() -> {
             try {
-                List<String> patients = CppIntegrationService.getAllPatientsSorted();
-                SwingUtilities.invokeLater(() -> {
-                    model.setRowCount(0);
-                    for (String line : patients) {
-                        String[] parts = line.split(",");
-                        if (parts.length >= 5) {
-                            String status = parts[3].contains("Critical") ? "🔴 Critical" : "✅ Active";
-                            model.addRow(new Object[]{parts[0], parts[1], parts[2], parts[3], parts[4], status});
+                // Fill the table page by page instead of loading every patient first
+                PatientCursor cursor = CppIntegrationService.patientCursor(Integer.MIN_VALUE, 500);
+                SwingUtilities.invokeLater(() -> model.setRowCount(0));
+                List<String> page;
+                while (!(page = cursor.nextPage()).isEmpty()) {
+                    List<Object[]> rows = new ArrayList<>(page.size());
+                    for (String line : page) {
+                        String[] parts = CsvCodec.split(line, 5);
+                        if (parts != null) {
+                            rows.add(new Object[]{parts[0], parts[1], parts[2], parts[3], parts[4], priorityLabel(parts[0])});
                         }
                     }
-                });
+                    SwingUtilities.invokeLater(() -> rows.forEach(model::addRow));
+                }
             } catch (Exception e) {
                 e.printStackTrace();
             }
@@ -676,6 +691,20 @@ public class MainFrameEnhanced extends JFrame {
         return panel;
     }
 
+    // Status column text for the triage level stored with the patient
+    private String priorityLabel(String id) {
+        String priority;
+        try {
+            priority = CppIntegrationService.getPatientPriority(Integer.parseInt(id.trim()));
+        } catch (NumberFormatException e) {
+            priority = null;
+        }
+        if ("CRITICAL".equals(priority)) {
+            return "🔴 Critical";
+        }
+        return "HIGH".equals(priority) ? "🟠 High" : "✅ Active";
+    }
+
     private void showDoctors() {
         contentPanel.removeAll();
         contentPanel.setLayout(new BorderLayout());
@@ -702,23 +731,33 @@ public class MainFrameEnhanced extends JFrame {
         addModernFormField(formPanel, gbc, "Specialization", specField, 1);
         addModernFormField(formPanel, gbc, "Available Slots", slotsField, 2);
 
+        String[] columns = {"ID", "Name", "Specialization", "Assigned", "Available", "Load %"};
+        DefaultTableModel model = new DefaultTableModel(columns, 0);
+
         gbc.gridx = 3;
         gbc.gridy = 0;
         gbc.gridheight = 3;
         JButton addBtn = createModernButton("➕ Add Doctor", ELECTRIC_BLUE);
         addBtn.addActionListener(e -> {
-            System.out.println("✓ Doctor added: " + nameField.getText());
-            nameField.setText("");
-            specField.setText("");
-            slotsField.setText("");
+            try {
+                String slots = slotsField.getText().trim();
+                String result = CppIntegrationService.addDoctor(nameField.getText(), specField.getText(),
+                        slots.isEmpty() ? 0 : Integer.parseInt(slots));
+                System.out.println(result);
+                if (result.startsWith("SUCCESS")) {
+                    nameField.setText("");
+                    specField.setText("");
+                    slotsField.setText("");
+                    loadDoctorRows(model);
+                }
+            } catch (NumberFormatException ex) {
+                System.out.println("Error: Available Slots must be a number");
+            }
         });
         formPanel.add(addBtn, gbc);
 
         topPanel.add(formPanel, BorderLayout.NORTH);
 
-        String[] columns = {"ID", "Name", "Specialization", "Assigned", "Available", "Load %"};
-        DefaultTableModel model = new DefaultTableModel(columns, 0);
-
         JTable table = new JTable(model);
         table.setBackground(DARK_NAVY);
         table.setForeground(TEXT_WHITE);
@@ -746,13 +785,7 @@ public class MainFrameEnhanced extends JFrame {
         tablePanel.add(scrollPane, BorderLayout.CENTER);
         topPanel.add(tablePanel, BorderLayout.CENTER);
 
-        String[] specializations = {"General Medicine", "Cardiology", "Orthopedic", "Neurology", "Surgery", "Dermatology", "Psychiatry", "Pediatrics"};
-        for (int i = 1; i <= 8; i++) {
-            int assigned = (int)(Math.random() * 30);
-            int available = (int)(Math.random() * 20);
-            int loadPercent = (int)(Math.random() * 100);
-            model.addRow(new Object[]{"DR-" + String.format("%03d", i), "Dr. " + ("ABCDEFGH".charAt(i-1)) + " Khan", specializations[i-1], assigned, available, loadPercent + "%"});
-        }
+        loadDoctorRows(model);
 
         JPanel outputPanel = createOutputPanel("Operation Output");
 
@@ -766,6 +799,16 @@ public class MainFrameEnhanced extends JFrame {
         contentPanel.repaint();
     }
 
+    private void loadDoctorRows(DefaultTableModel model) {
+        model.setRowCount(0);
+        for (Doctor doctor : CppIntegrationService.getDoctors()) {
+            int assigned = doctor.getAppointmentCount();
+            Object available = doctor.getCapacity() > 0 ? Math.max(0, doctor.getCapacity() - assigned) : "—";
+            model.addRow(new Object[]{"DR-" + String.format("%03d", doctor.getId()), "Dr. " + doctor.getName(),
+                    doctor.getSpecialization(), assigned, available, doctor.getLoadPercent() + "%"});
+        }
+    }
+
     private void showAppointments() {
         contentPanel.removeAll();
         contentPanel.setLayout(new BorderLayout());
@@ -793,6 +836,11 @@ public class MainFrameEnhanced extends JFrame {
         addModernFormField(formPanel, gbc, "Doctor ID", didField, 1);
         addModernFormField(formPanel, gbc, "Date (YYYY-MM-DD)", dateField, 2);
         addModernFormField(formPanel, gbc, "Time (HH:MM)", timeField, 3);
+        JTextField specField = createModernTextField(15);
+        addModernFormField(formPanel, gbc, "Specialization (auto-assign)", specField, 4);
+
+        String[] columns = {"ID", "Patient", "Doctor", "Date", "Time", "Status"};
+        DefaultTableModel model = new DefaultTableModel(columns, 0);
 
         gbc.gridx = 4;
         gbc.gridy = 0;
@@ -807,11 +855,16 @@ public class MainFrameEnhanced extends JFrame {
                         timeField.getText()
                 );
                 System.out.println(result);
+                if (result.contains("not available")) {
+                    System.out.println("Free slots: " + CppIntegrationService.getAvailableSlots(
+                            Integer.parseInt(didField.getText()), dateField.getText()));
+                }
                 if (result.contains("SUCCESS")) {
                     pidField.setText("");
                     didField.setText("");
                     dateField.setText("");
                     timeField.setText("");
+                    loadAppointmentRows(model);
                 }
             } catch (Exception ex) {
                 System.out.println("Error: " + ex.getMessage());
@@ -819,10 +872,33 @@ public class MainFrameEnhanced extends JFrame {
         });
         formPanel.add(scheduleBtn, gbc);
 
+        // Leaves the doctor to the least-loaded free one of the specialization
+        gbc.gridy = 4;
+        gbc.gridheight = 1;
+        JButton autoBtn = createModernButton("⚖️ Auto-assign", EMERALD);
+        autoBtn.addActionListener(e -> {
+            try {
+                String result = CppIntegrationService.assignAppointment(
+                        Integer.parseInt(pidField.getText()),
+                        specField.getText(),
+                        dateField.getText(),
+                        timeField.getText()
+                );
+                System.out.println(result);
+                if (result.contains("SUCCESS")) {
+                    pidField.setText("");
+                    dateField.setText("");
+                    timeField.setText("");
+                    loadAppointmentRows(model);
+                }
+            } catch (Exception ex) {
+                System.out.println("Error: " + ex.getMessage());
+            }
+        });
+        formPanel.add(autoBtn, gbc);
+
         topPanel.add(formPanel, BorderLayout.NORTH);
 
-        String[] columns = {"ID", "Patient", "Doctor", "Date", "Time", "Status"};
-        DefaultTableModel model = new DefaultTableModel(columns, 0);
         JTable table = new JTable(model);
         table.setBackground(DARK_NAVY);
         table.setForeground(TEXT_WHITE);
@@ -848,11 +924,37 @@ public class MainFrameEnhanced extends JFrame {
         scrollPane.setBorder(new LineBorder(new Color(59, 130, 246, 30), 1));
         scrollPane.getViewport().setBackground(DARK_NAVY);
         tablePanel.add(scrollPane, BorderLayout.CENTER);
-        topPanel.add(tablePanel, BorderLayout.CENTER);
 
-        for (int i = 1; i <= 8; i++) {
-            model.addRow(new Object[]{"APT-" + String.format("%04d", i), "P-" + (100+i), "DR-" + String.format("%03d", i%5+1), "2025-01-" + (10+i), String.format("%02d:%02d", 9+i, (i*15)%60), "✅ Confirmed"});
+        // Status actions apply to every selected row in one batch
+        JPanel actionPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 12, 0));
+        actionPanel.setBackground(SLATE_MEDIUM);
+        actionPanel.setBorder(new EmptyBorder(15, 0, 0, 0));
+        Object[][] actions = {
+                {"✔ Complete", EMERALD, Appointment.Status.COMPLETED},
+                {"⚠ No-show", AMBER, Appointment.Status.NO_SHOW},
+                {"✖ Cancel", ROSE, Appointment.Status.CANCELLED}
+        };
+        for (Object[] action : actions) {
+            JButton actionBtn = createModernButton((String) action[0], (Color) action[1]);
+            actionBtn.addActionListener(e -> {
+                int[] rows = table.getSelectedRows();
+                if (rows.length == 0) {
+                    System.out.println("Select one or more appointments first");
+                    return;
+                }
+                int[] ids = new int[rows.length];
+                for (int i = 0; i < rows.length; i++) {
+                    ids[i] = Integer.parseInt(((String) model.getValueAt(rows[i], 0)).substring(4));
+                }
+                System.out.println(CppIntegrationService.updateAppointmentStatuses(ids, (Appointment.Status) action[2]));
+                loadAppointmentRows(model);
+            });
+            actionPanel.add(actionBtn);
         }
+        tablePanel.add(actionPanel, BorderLayout.SOUTH);
+        topPanel.add(tablePanel, BorderLayout.CENTER);
+
+        loadAppointmentRows(model);
 
         JPanel outputPanel = createOutputPanel("Operation Output");
 
@@ -866,6 +968,24 @@ public class MainFrameEnhanced extends JFrame {
         contentPanel.repaint();
     }
 
+    private void loadAppointmentRows(DefaultTableModel model) {
+        model.setRowCount(0);
+        for (Appointment apt : CppIntegrationService.getAllAppointments()) {
+            model.addRow(new Object[]{"APT-" + String.format("%04d", apt.getId()), "P-" + apt.getPatientId(),
+                    "DR-" + String.format("%03d", apt.getDoctorId()), apt.getDate(), apt.getTime(),
+                    statusLabel(apt.getStatus())});
+        }
+    }
+
+    private static String statusLabel(Appointment.Status status) {
+        switch (status) {
+            case COMPLETED: return "✔ Completed";
+            case CANCELLED: return "✖ Cancelled";
+            case NO_SHOW: return "⚠ No-show";
+            default: return "✅ Confirmed";
+        }
+    }
+
     private void showLoadBalance() {
         contentPanel.removeAll();
         contentPanel.setLayout(new BorderLayout());
@@ -883,7 +1003,6 @@ public class MainFrameEnhanced extends JFrame {
         JButton balanceBtn = createModernButton("⚖️ Balance Load", ELECTRIC_BLUE);
         JButton statusBtn = createModernButton("📊 View Status", EMERALD);
 
-        balanceBtn.addActionListener(e -> System.out.println("✓ Load balanced successfully!"));
         statusBtn.addActionListener(e -> {
             try {
                 String status = CppIntegrationService.getDoctorLoadStatus();
@@ -926,13 +1045,22 @@ public class MainFrameEnhanced extends JFrame {
         tablePanel.add(scrollPane, BorderLayout.CENTER);
         topPanel.add(tablePanel, BorderLayout.CENTER);
 
-        for (int i = 1; i <= 6; i++) {
-            int load = 15 + (int)(Math.random() * 35);
-            int capacity = 50;
-            int util = (load * 100) / capacity;
-            String status = util > 75 ? "🔴 High Load" : util > 50 ? "🟡 Medium" : "🟢 Optimal";
-            model.addRow(new Object[]{"Dr. " + ("ABCDEFGH".charAt(i-1)) + " Khan", load + " patients", capacity + " patients", util + "%", status});
-        }
+        loadBalanceRows(model);
+        statusBtn.addActionListener(e -> loadBalanceRows(model));
+        balanceBtn.addActionListener(e -> {
+            RebalancePlan plan = CppIntegrationService.planLoadBalance();
+            System.out.println(CppIntegrationService.previewLoadBalance(plan));
+            if (plan.isEmpty()) {
+                return;
+            }
+            int choice = JOptionPane.showConfirmDialog(this,
+                    "Move " + plan.getMoves().size() + " appointment(s) to even out doctor loads?",
+                    "Balance Load", JOptionPane.YES_NO_OPTION);
+            if (choice == JOptionPane.YES_OPTION) {
+                System.out.println(CppIntegrationService.applyLoadBalance(plan));
+                loadBalanceRows(model);
+            }
+        });
 
         JPanel outputPanel = createOutputPanel("Operation Output");
 
@@ -946,6 +1074,17 @@ public class MainFrameEnhanced extends JFrame {
         contentPanel.repaint();
     }
 
+    private void loadBalanceRows(DefaultTableModel model) {
+        model.setRowCount(0);
+        for (Doctor doctor : CppIntegrationService.getDoctors()) {
+            int util = doctor.getLoadPercent();
+            String status = util > 75 ? "🔴 High Load" : util > 50 ? "🟡 Medium" : "🟢 Optimal";
+            String capacity = doctor.getCapacity() > 0 ? doctor.getCapacity() + " patients" : "—";
+            model.addRow(new Object[]{"Dr. " + doctor.getName(), doctor.getAppointmentCount() + " patients",
+                    capacity, util + "%", status});
+        }
+    }
+
     private void showAnalytics() {
         contentPanel.removeAll();
         contentPanel.setLayout(new BorderLayout());
@@ -979,7 +1118,7 @@ public class MainFrameEnhanced extends JFrame {
         controlPanel.add(analyzeBtn);
         topPanel.add(controlPanel, BorderLayout.NORTH);
 
-        String[] columns = {"Disease", "Count", "Percentage", "Priority", "Trend"};
+        String[] columns = {"Disease", "Count", "Percentage", "Share"};
         DefaultTableModel model = new DefaultTableModel(columns, 0);
         JTable table = new JTable(model);
         table.setBackground(DARK_NAVY);
@@ -1008,13 +1147,16 @@ public class MainFrameEnhanced extends JFrame {
         tablePanel.add(scrollPane, BorderLayout.CENTER);
         topPanel.add(tablePanel, BorderLayout.CENTER);
 
-        String[] diseases = {"Diabetes Type 2", "Hypertension", "Cardiovascular", "Orthopedic Issues", "Neurological", "Respiratory", "Dermatology", "Mental Health"};
-        for (int i = 0; i < diseases.length; i++) {
-            int count = 50 + (int)(Math.random() * 150);
-            int percentage = 10 + (int)(Math.random() * 25);
-            String priority = count > 120 ? "🔴 High" : count > 80 ? "🟡 Medium" : "🟢 Normal";
-            String trend = Math.random() > 0.5 ? "📈 Rising" : "📉 Declining";
-            model.addRow(new Object[]{diseases[i], count + " cases", percentage + "%", priority, trend});
+        // Disease distribution from the running totals, largest first
+        AnalyticsSnapshot stats = CppIntegrationService.getAnalyticsSnapshot();
+        List<Map.Entry<String, Long>> diseases = new ArrayList<>(stats.getPatientsByDisease().entrySet());
+        diseases.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        long total = Math.max(1, stats.getPatients());
+        for (Map.Entry<String, Long> disease : diseases) {
+            long count = disease.getValue();
+            long percentage = Math.round(count * 100.0 / total);
+            String share = percentage >= 25 ? "🔴 High" : percentage >= 10 ? "🟡 Medium" : "🟢 Normal";
+            model.addRow(new Object[]{disease.getKey(), String.format("%,d cases", count), percentage + "%", share});
         }
 
         JPanel outputPanel = createOutputPanel("Operation Output");
@@ -1055,12 +1197,20 @@ public class MainFrameEnhanced extends JFrame {
         diseaseCombo.setForeground(new Color(30, 30, 30)); // Dark black text
         diseaseCombo.setFont(new Font("Segoe UI", Font.BOLD, 12));
 
-        addModernFormField(searchPanel, gbc, "Patient ID", idField, 0);
+        addModernFormField(searchPanel, gbc, "Patient ID / Phone", idField, 0);
         gbc.gridx = 2; gbc.gridy = 0;
         searchPanel.add(searchBtn, gbc);
 
         addModernFormField(searchPanel, gbc, "Filter by Disease", diseaseCombo, 1);
 
+        JTextField nameField = createModernTextField(18);
+        addModernFormField(searchPanel, gbc, "Patient Name", nameField, 2);
+        JCheckBox fuzzyBox = new JCheckBox("Typo tolerant");
+        fuzzyBox.setOpaque(false);
+        fuzzyBox.setForeground(TEXT_WHITE);
+        gbc.gridx = 2; gbc.gridy = 2;
+        searchPanel.add(fuzzyBox, gbc);
+
         topPanel.add(searchPanel, BorderLayout.NORTH);
 
         String[] columns = {"ID", "Name", "Age", "Disease", "Phone", "Match"};
@@ -1094,11 +1244,31 @@ public class MainFrameEnhanced extends JFrame {
 
         searchBtn.addActionListener(e -> {
             try {
-                String result = CppIntegrationService.searchPatient(Integer.parseInt(idField.getText()));
+                // An 11-digit entry is a caller's phone number rather than an id
+                String entered = idField.getText().trim();
+                if (entered.length() == 11) {
+                    model.setRowCount(0);
+                    for (String line : CppIntegrationService.findPatientsByPhone(entered)) {
+                        String[] parts = CsvCodec.split(line, 5);
+                        if (parts != null) {
+                            model.addRow(new Object[]{parts[0], parts[1], parts[2], parts[3], parts[4], "📞 Phone"});
+                        }
+                    }
+                    return;
+                }
+                int id = Integer.parseInt(entered);
+                String result = CppIntegrationService.searchPatient(id);
                 System.out.println(result);
                 if (!result.contains("ERROR")) {
-                    String[] parts = result.split(",");
-                    if (parts.length >= 5) {
+                    List<String> similar = CppIntegrationService.findSimilarPatients(id);
+                    System.out.println("Similar patients (same disease): " + similar.size());
+                    for (String line : similar.subList(0, Math.min(10, similar.size()))) {
+                        System.out.println("  " + line);
+                    }
+                }
+                if (!result.contains("ERROR")) {
+                    String[] parts = CsvCodec.split(result, 5);
+                    if (parts != null) {
                         model.setRowCount(0);
                         model.addRow(new Object[]{parts[0], parts[1], parts[2], parts[3], parts[4], "✅ 100%"});
                     }
@@ -1108,21 +1278,55 @@ public class MainFrameEnhanced extends JFrame {
             }
         });
 
+        // Search as you type: query the name index once typing pauses, showing only the latest answer
+        int[] nameQuery = {0};
+        Timer nameTimer = new Timer(120, e -> {
+            String prefix = nameField.getText();
+            boolean fuzzy = fuzzyBox.isSelected();
+            int query = ++nameQuery[0];
+            executor.execute(() -> {
+                List<String> matches = fuzzy ? CppIntegrationService.searchPatientsByNameFuzzy(prefix, 50)
+                        : CppIntegrationService.searchPatientsByName(prefix, 50);
+                SwingUtilities.invokeLater(() -> {
+                    if (query != nameQuery[0]) {
+                        return;
+                    }
+                    model.setRowCount(0);
+                    for (String line : matches) {
+                        String[] parts = CsvCodec.split(line, fuzzy ? 6 : 5);
+                        if (parts != null) {
+                            model.addRow(new Object[]{parts[0], parts[1], parts[2], parts[3], parts[4],
+                                    fuzzy ? "≈ " + parts[5] : "🔤 Name"});
+                        }
+                    }
+                });
+            });
+        });
+        nameTimer.setRepeats(false);
+        fuzzyBox.addActionListener(e -> nameTimer.restart());
+        nameField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            public void insertUpdate(javax.swing.event.DocumentEvent e) { nameTimer.restart(); }
+            public void removeUpdate(javax.swing.event.DocumentEvent e) { nameTimer.restart(); }
+            public void changedUpdate(javax.swing.event.DocumentEvent e) { nameTimer.restart(); }
+        });
+
         diseaseCombo.addActionListener(e -> {
             String disease = (String) diseaseCombo.getSelectedItem();
             if (!disease.equals("All Diseases")) {
                 executor.execute(() -> {
                     try {
-                        List<String> patients = CppIntegrationService.getAllPatientsSorted();
+                        // Read from the disease index instead of rescanning every patient
+                        List<String[]> matches = new ArrayList<>();
+                        for (String line : CppIntegrationService.findPatientsByDisease(disease)) {
+                            String[] parts = CsvCodec.split(line, 5);
+                            if (parts != null) {
+                                matches.add(parts);
+                            }
+                        }
                         SwingUtilities.invokeLater(() -> {
                             model.setRowCount(0);
-                            for (String line : patients) {
-                                if (line.toLowerCase().contains(disease.toLowerCase())) {
-                                    String[] parts = line.split(",");
-                                    if (parts.length >= 5) {
-                                        model.addRow(new Object[]{parts[0], parts[1], parts[2], parts[3], parts[4], "✅ 95%"});
-                                    }
-                                }
+                            for (String[] parts : matches) {
+                                model.addRow(new Object[]{parts[0], parts[1], parts[2], parts[3], parts[4], "✅ 95%"});
                             }
                         });
                     } catch (Exception ex) {
@@ -1201,11 +1405,11 @@ public class MainFrameEnhanced extends JFrame {
         patientBtn.addActionListener(e -> {
             executor.execute(() -> {
                 try {
-                    List<String> patients = CppIntegrationService.getAllPatientsSorted();
+                    int patients = CppIntegrationService.countPatients();
                     SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm");
                     SwingUtilities.invokeLater(() -> {
-                        model.insertRow(0, new Object[]{"Patient Report", sdf.format(new Date()), patients.size() + " records", (patients.size() * 120) + " KB", "✅ Complete"});
-                        System.out.println("✓ Generated Patient Report: " + patients.size() + " records");
+                        model.insertRow(0, new Object[]{"Patient Report", sdf.format(new Date()), patients + " records", (patients * 120) + " KB", "✅ Complete"});
+                        System.out.println("✓ Generated Patient Report: " + patients + " records");
                     });
                 } catch (Exception ex) {
                     System.out.println("Error: " + ex.getMessage());
@@ -1367,19 +1571,19 @@ public class MainFrameEnhanced extends JFrame {
         if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
             executor.execute(() -> {
                 try {
-                    List<String> lines = Files.readAllLines(chooser.getSelectedFile().toPath());
-                    int count = 0;
-                    for (int i = 1; i < lines.size(); i++) {
-                        String[] parts = lines.get(i).split(",");
-                        if (parts.length >= 5) {
-                            CppIntegrationService.addPatient(nextPatientId++, parts[1].trim(),
-                                    Integer.parseInt(parts[2].trim()), parts[3].trim(), parts[4].trim());
-                            count++;
-                        }
+                    BulkPatientImporter.Result result = CppIntegrationService.importPatients(
+                            chooser.getSelectedFile().toPath(),
+                            (read, imported, rejected) -> System.out.println(
+                                    "Importing... " + read + " rows read, " + imported + " imported, " + rejected + " rejected"));
+                    for (BulkPatientImporter.Reject reject : result.rejects) {
+                        System.out.println("✗ " + reject);
                     }
-                    int finalCount = count;
                     SwingUtilities.invokeLater(() -> {
-                        showModernMessage("✓ Successfully imported " + finalCount + " patients!", true);
+                        String message = "✓ Successfully imported " + result.imported + " patients!";
+                        if (!result.rejects.isEmpty()) {
+                            message += " (" + result.rejects.size() + " rows rejected)";
+                        }
+                        showModernMessage(message, true);
                         showPatients();
                     });
                 } catch (Exception e) {
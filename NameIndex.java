@@ -0,0 +1,584 @@
+package Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Prefix index over patient names for search-as-you-type.
+ *
+ * Names are normalized (lower case, runs of anything but letters and
+ * digits turned into one space) and kept as UTF-8 bytes in one arena.
+ * Every word start of every name is an entry, so "kh" finds "Ahmed Khan"
+ * as well as "Khalid Ali". Entries are sorted by the text from their word
+ * start to the end of the name; a prefix lookup is a binary search to
+ * the first entry at or after the prefix and a walk while entries still
+ * start with it, so it touches only the entries it returns.
+ *
+ * New entries go to a small sorted delta. A full delta is carried into
+ * a set of sorted runs like a binary counter: run i holds DELTA << i
+ * entries or none, and two runs of one size merge into the next. Every
+ * entry is merged O(log n) times over its life, so adds stay cheap at
+ * millions of names, and a lookup searches the delta and each of the
+ * O(log n) runs.
+ *
+ * For misspelled names ("Mohammed" for "Muhammad") there is also a
+ * trigram index: each name's distinct trigrams map to posting lists of
+ * name numbers. A name within k edits of the query shares all but at most
+ * 3k of the query's trigrams, so candidates come from the 3k + 1 rarest
+ * of its posting lists, are counted against the rest, and only the
+ * survivors are checked with a bounded edit distance.
+ */
+class NameIndex {
+
+    private static final int DELTA = 1024;
+
+    // Normalized names: name n is arena[nameStarts[n], nameStarts[n + 1])
+    private byte[] arena = new byte[1 << 12];
+    private int arenaSize;
+    private int[] nameStarts = new int[1025];
+    private int[] ids = new int[1024];
+    private int names;
+
+    // Entries: (arena position of a word start << 32) | name number
+    private long[] delta = new long[DELTA];
+    private int deltaSize;
+    private long[][] runs = new long[0][];   // runs[i] is sorted, DELTA << i long, or null
+
+    // Trigram -> posting list of name numbers (ascending), open addressing on the packed trigram
+    private int[] gramKeys = new int[1 << 12];   // 0 = empty slot
+    private int[] gramLists = new int[1 << 12];
+    private int grams;
+    private int[][] postings = new int[1 << 11][];
+    private int[] postingSizes = new int[1 << 11];
+    private int[] hitCounts = new int[0];   // per name, scratch for fuzzySearch; all zero between calls
+
+    /** A fuzzy match: the patient, its edit distance and its similarity in percent. */
+    static final class Match {
+        final int id;
+        final int distance;
+        final int similarity;
+
+        Match(int id, int distance, int similarity) {
+            this.id = id;
+            this.distance = distance;
+            this.similarity = similarity;
+        }
+    }
+
+    /** Indexes every word start of the patient's name. */
+    synchronized void add(int patientId, String name) {
+        byte[] normalized = normalize(name).getBytes(StandardCharsets.UTF_8);
+        int start = arenaSize;
+        if (arenaSize + normalized.length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + normalized.length));
+        }
+        System.arraycopy(normalized, 0, arena, arenaSize, normalized.length);
+        arenaSize += normalized.length;
+        if (names == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+            nameStarts = Arrays.copyOf(nameStarts, ids.length + 1);
+        }
+        int number = names++;
+        ids[number] = patientId;
+        nameStarts[number] = start;
+        nameStarts[number + 1] = arenaSize;
+
+        for (int i = start; i < arenaSize; i++) {
+            if (i == start || arena[i - 1] == ' ') {
+                insertDelta(((long) i << 32) | number);
+            }
+        }
+        for (int gram : nameGrams(start, arenaSize)) {
+            post(gram, number);
+        }
+    }
+
+    synchronized void clear() {
+        arenaSize = 0;
+        names = 0;
+        deltaSize = 0;
+        runs = new long[0][];
+        Arrays.fill(gramKeys, 0);
+        grams = 0;
+        Arrays.fill(postingSizes, 0);
+    }
+
+    synchronized int size() {
+        return names;
+    }
+
+    /**
+     * Ids of up to limit patients with a name word starting with the
+     * prefix, in order of the matching text; each patient at most once.
+     */
+    synchronized int[] search(String prefix, int limit) {
+        byte[] wanted = normalize(prefix).getBytes(StandardCharsets.UTF_8);
+        if (wanted.length == 0 || limit <= 0) {
+            return new int[0];
+        }
+        int[] found = new int[Math.min(limit, 64)];
+        int count = 0;
+
+        // One cursor per sorted array, all starting at the prefix; always take the smallest
+        long[][] arrays = new long[runs.length + 1][];
+        int[] sizes = new int[arrays.length];
+        int[] cursors = new int[arrays.length];
+        for (int r = 0; r < arrays.length; r++) {
+            arrays[r] = r < runs.length ? runs[r] : delta;
+            sizes[r] = arrays[r] == null ? 0 : r < runs.length ? arrays[r].length : deltaSize;
+            cursors[r] = lowerBound(arrays[r], sizes[r], wanted);
+        }
+        while (count < limit) {
+            int best = -1;
+            for (int r = 0; r < arrays.length; r++) {
+                if (cursors[r] < sizes[r] && startsWith(arrays[r][cursors[r]], wanted)
+                        && (best < 0 || compare(arrays[r][cursors[r]], arrays[best][cursors[best]]) < 0)) {
+                    best = r;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            int id = ids[(int) arrays[best][cursors[best]++]];
+            if (!contains(found, count, id)) {   // a name can match at two of its words
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, Math.min(limit, found.length * 2));
+                }
+                found[count++] = id;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Up to limit patients whose name, or a run of as many consecutive
+     * name words as the query has, is within maxEdits edits of the query;
+     * closest first. maxEdits is lowered where the trigram bound cannot
+     * hold for so short a query.
+     */
+    synchronized List<Match> fuzzySearch(String query, int maxEdits, int limit) {
+        byte[] wanted = normalize(query).getBytes(StandardCharsets.UTF_8);
+        List<Match> matches = new ArrayList<>();
+        if (wanted.length == 0 || limit <= 0) {
+            return matches;
+        }
+        int[] queryGrams = distinct(padded(wanted), 0, wanted.length + 3, new int[wanted.length + 1], 0);
+        int edits = Math.max(0, Math.min(maxEdits, (queryGrams.length - 1) / 3));
+        int needed = queryGrams.length - 3 * edits;
+
+        // Posting lists rarest first; every candidate is in one of the first 3k + 1
+        int[][] lists = new int[queryGrams.length][];
+        int[] lengths = new int[queryGrams.length];
+        Integer[] order = new Integer[queryGrams.length];
+        for (int g = 0; g < queryGrams.length; g++) {
+            int list = findGram(queryGrams[g]);
+            lists[g] = list < 0 ? new int[0] : postings[list];
+            lengths[g] = list < 0 ? 0 : postingSizes[list];
+            order[g] = g;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(lengths[a], lengths[b]));
+        int probed = queryGrams.length - needed + 1;
+        if (hitCounts.length < names) {
+            hitCounts = new int[ids.length];
+        }
+        int[] candidates = new int[64];
+        int total = 0;
+        for (int i = 0; i < probed; i++) {
+            int[] list = lists[order[i]];
+            for (int p = 0, size = lengths[order[i]]; p < size; p++) {
+                int number = list[p];
+                if (hitCounts[number]++ == 0) {
+                    if (total == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, total * 2);
+                    }
+                    candidates[total++] = number;
+                }
+            }
+        }
+        // Candidates in name order, with the hits counted so far
+        Arrays.sort(candidates, 0, total);
+        int[] hits = new int[total];
+        for (int c = 0; c < total; c++) {
+            hits[c] = hitCounts[candidates[c]];
+            hitCounts[candidates[c]] = 0;
+        }
+
+        // Merge in the remaining lists, dropping candidates that can no longer reach the bound
+        for (int g = probed; g < queryGrams.length && total > 0; g++) {
+            int[] list = lists[order[g]];
+            int size = lengths[order[g]];
+            int listsLeft = queryGrams.length - g - 1;
+            int kept = 0;
+            for (int c = 0, p = 0; c < total; c++) {
+                p = gallop(list, p, size, candidates[c]);
+                int count = hits[c] + (p < size && list[p] == candidates[c] ? 1 : 0);
+                if (count + listsLeft >= needed) {
+                    candidates[kept] = candidates[c];
+                    hits[kept++] = count;
+                }
+            }
+            total = kept;
+        }
+
+        int queryWords = words(wanted, 0, wanted.length);
+        int[] row = new int[wanted.length + 1];
+        int[] previous = new int[wanted.length + 1];
+        for (int i = 0; i < total; i++) {
+            int number = candidates[i];
+            int[] best = closestWindow(wanted, queryWords, number, edits, row, previous);
+            if (best != null) {
+                matches.add(new Match(ids[number], best[0],
+                        100 - 100 * best[0] / Math.max(wanted.length, best[1])));
+            }
+        }
+        matches.sort((a, b) -> a.distance != b.distance ? Integer.compare(a.distance, b.distance)
+                : a.similarity != b.similarity ? Integer.compare(b.similarity, a.similarity)
+                : Integer.compare(a.id, b.id));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    /** Lower case, with each run of characters other than letters and digits made one space. */
+    static String normalize(String name) {
+        StringBuilder result = new StringBuilder(name.length());
+        boolean gap = false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (gap && result.length() > 0) {
+                    result.append(' ');
+                }
+                result.append(c);
+                gap = false;
+            } else {
+                gap = true;
+            }
+        }
+        return result.toString().toLowerCase(Locale.ROOT);
+    }
+
+    // ===== SORTED ENTRIES =====
+    private void insertDelta(long entry) {
+        int i = lowerBound(delta, deltaSize, entry);
+        System.arraycopy(delta, i, delta, i + 1, deltaSize - i);
+        delta[i] = entry;
+        if (++deltaSize == DELTA) {
+            carry();
+        }
+    }
+
+    // Moves the full delta into the runs, merging equal-sized runs upwards
+    private void carry() {
+        long[] carried = Arrays.copyOf(delta, DELTA);
+        deltaSize = 0;
+        int level = 0;
+        while (level < runs.length && runs[level] != null) {
+            carried = merge(runs[level], carried);
+            runs[level++] = null;
+        }
+        if (level == runs.length) {
+            runs = Arrays.copyOf(runs, runs.length + 1);
+        }
+        runs[level] = carried;
+    }
+
+    private long[] merge(long[] a, long[] b) {
+        long[] merged = new long[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < merged.length; k++) {
+            if (j == b.length || (i < a.length && compare(a[i], b[j]) <= 0)) {
+                merged[k] = a[i++];
+            } else {
+                merged[k] = b[j++];
+            }
+        }
+        return merged;
+    }
+
+    // First index whose entry sorts at or after the given entry
+    private int lowerBound(long[] entries, int size, long entry) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(entries[middle], entry) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // First index whose text sorts at or after the prefix
+    private int lowerBound(long[] entries, int size, byte[] prefix) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareText(entries[middle], prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // By text from the word start to the end of the name, then by name number
+    private int compare(long a, long b) {
+        int aPos = (int) (a >>> 32);
+        int bPos = (int) (b >>> 32);
+        int aEnd = nameStarts[(int) a + 1];
+        int bEnd = nameStarts[(int) b + 1];
+        for (; aPos < aEnd && bPos < bEnd; aPos++, bPos++) {
+            int diff = (arena[aPos] & 0xFF) - (arena[bPos] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        int byLength = (aEnd - aPos) - (bEnd - bPos);
+        return byLength != 0 ? byLength : Integer.compare((int) a, (int) b);
+    }
+
+    private int compareText(long entry, byte[] text) {
+        int pos = (int) (entry >>> 32);
+        int end = nameStarts[(int) entry + 1];
+        for (int i = 0; i < text.length; i++, pos++) {
+            if (pos == end) {
+                return -1;
+            }
+            int diff = (arena[pos] & 0xFF) - (text[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return 0;
+    }
+
+    private boolean startsWith(long entry, byte[] prefix) {
+        return compareText(entry, prefix) == 0;
+    }
+
+    // ===== TRIGRAMS =====
+
+    // Distinct trigrams of "  name ", plus "  w" for each later word w so that
+    // any run of words has all its own trigrams among the name's
+    private int[] nameGrams(int start, int end) {
+        byte[] text = padded(Arrays.copyOfRange(arena, start, end));
+        int[] result = new int[(end - start) * 2 + 1];
+        int count = 0;
+        for (int i = 0; i + 3 <= text.length; i++) {
+            result[count++] = gram(text, i);
+            if (i > 0 && text[i] == ' ' && i + 1 < text.length - 1) {
+                result[count++] = (' ' << 16) | (' ' << 8) | (text[i + 1] & 0xFF);
+            }
+        }
+        return distinct(text, 0, 0, result, count);
+    }
+
+    // Trigrams of text[from, to) added to grams[0, count), sorted without repeats
+    private static int[] distinct(byte[] text, int from, int to, int[] grams, int count) {
+        for (int i = from; i + 3 <= to; i++) {
+            grams[count++] = gram(text, i);
+        }
+        Arrays.sort(grams, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || grams[unique - 1] != grams[i]) {
+                grams[unique++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, unique);
+    }
+
+    private static byte[] padded(byte[] text) {
+        byte[] result = new byte[text.length + 3];
+        Arrays.fill(result, (byte) ' ');
+        System.arraycopy(text, 0, result, 2, text.length);
+        return result;
+    }
+
+    private static int gram(byte[] text, int i) {
+        return (text[i] & 0xFF) << 16 | (text[i + 1] & 0xFF) << 8 | (text[i + 2] & 0xFF);
+    }
+
+    private void post(int gram, int number) {
+        int list = findGram(gram);
+        if (list < 0) {
+            if ((grams + 1) * 2 > gramKeys.length) {
+                growGrams();
+            }
+            list = grams++;
+            int slot = slotOf(gramKeys, gram);
+            gramKeys[slot] = gram;
+            gramLists[slot] = list;
+            if (list == postings.length) {
+                postings = Arrays.copyOf(postings, list * 2);
+                postingSizes = Arrays.copyOf(postingSizes, list * 2);
+            }
+            if (postings[list] == null) {
+                postings[list] = new int[4];
+            }
+        }
+        int[] numbers = postings[list];
+        if (postingSizes[list] == numbers.length) {
+            postings[list] = numbers = Arrays.copyOf(numbers, numbers.length * 2);
+        }
+        numbers[postingSizes[list]++] = number;
+    }
+
+    private int findGram(int gram) {
+        int slot = slotOf(gramKeys, gram);
+        return gramKeys[slot] == 0 ? -1 : gramLists[slot];
+    }
+
+    // Slot holding the gram, or the empty slot where it belongs
+    private static int slotOf(int[] keys, int gram) {
+        int mask = keys.length - 1;
+        int h = gram * 0x9E3779B9;
+        int slot = (h ^ (h >>> 16)) & mask;
+        while (keys[slot] != 0 && keys[slot] != gram) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void growGrams() {
+        int[] oldKeys = gramKeys;
+        int[] oldLists = gramLists;
+        gramKeys = new int[oldKeys.length * 2];
+        gramLists = new int[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slotOf(gramKeys, oldKeys[i]);
+                gramKeys[slot] = oldKeys[i];
+                gramLists[slot] = oldLists[i];
+            }
+        }
+    }
+
+    // First index at or after from whose value is at least the target, list[from, size) ascending
+    private static int gallop(int[] list, int from, int size, int target) {
+        int step = 1;
+        int high = from;
+        while (high < size && list[high] < target) {
+            from = high + 1;
+            high += step;
+            step <<= 1;
+        }
+        high = Math.min(high, size);
+        while (from < high) {
+            int middle = (from + high) >>> 1;
+            if (list[middle] < target) {
+                from = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return from;
+    }
+
+    // ===== EDIT DISTANCE =====
+
+    // {distance, length} of the closest run of queryWords consecutive words of the name
+    // (the whole name if it has no more words), or null if none is within maxEdits
+    private int[] closestWindow(byte[] query, int queryWords, int number, int maxEdits,
+                                int[] row, int[] previous) {
+        int start = nameStarts[number];
+        int end = nameStarts[number + 1];
+        int[] best = null;
+        int wordsLeft = words(arena, start, end);
+        for (int from = start; from < end; ) {
+            int to = from;
+            for (int w = 0; w < queryWords && to < end; w++) {
+                to = skipWord(to, end);
+            }
+            int windowEnd = wordsLeft > queryWords ? to - 1 : end;   // drop the trailing space
+            int distance = boundedDistance(query, from, windowEnd, best == null ? maxEdits : best[0] - 1,
+                    row, previous);
+            if (distance >= 0) {
+                best = new int[]{distance, windowEnd - from};
+            }
+            if (wordsLeft <= queryWords) {
+                break;
+            }
+            if (from == start) {   // the whole name too, for a query that lost or gained a space
+                int whole = boundedDistance(query, start, end, best == null ? maxEdits : best[0] - 1,
+                        row, previous);
+                if (whole >= 0) {
+                    best = new int[]{whole, end - start};
+                }
+            }
+            from = skipWord(from, end);
+            wordsLeft--;
+        }
+        return best;
+    }
+
+    // Position after the word at from and the space following it
+    private int skipWord(int from, int end) {
+        while (from < end && arena[from] != ' ') {
+            from++;
+        }
+        return Math.min(end, from + 1);
+    }
+
+    private static int words(byte[] text, int start, int end) {
+        int count = start < end ? 1 : 0;
+        for (int i = start; i < end; i++) {
+            if (text[i] == ' ') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Levenshtein distance of query and arena[start, end), or -1 if above maxEdits;
+    // only cells within maxEdits of the diagonal are computed
+    private int boundedDistance(byte[] query, int start, int end, int maxEdits, int[] row, int[] previous) {
+        int length = end - start;
+        if (maxEdits < 0 || Math.abs(length - query.length) > maxEdits) {
+            return -1;
+        }
+        int over = maxEdits + 1;
+        for (int j = 0; j <= query.length; j++) {
+            previous[j] = Math.min(j, over);
+        }
+        for (int i = 1; i <= length; i++) {
+            byte c = arena[start + i - 1];
+            int from = Math.max(1, i - maxEdits);
+            int to = Math.min(query.length, i + maxEdits);
+            row[from - 1] = from == 1 ? Math.min(i, over) : over;
+            int rowMin = row[from - 1];
+            for (int j = from; j <= to; j++) {
+                int cost = query[j - 1] == c ? 0 : 1;
+                int value = Math.min(previous[j - 1] + cost, Math.min(previous[j], row[j - 1]) + 1);
+                row[j] = Math.min(value, over);
+                rowMin = Math.min(rowMin, row[j]);
+            }
+            if (to < query.length) {
+                row[to + 1] = over;
+            }
+            if (rowMin > maxEdits) {
+                return -1;
+            }
+            int[] swap = previous;
+            previous = row;
+            row = swap;
+        }
+        return previous[query.length] <= maxEdits ? previous[query.length] : -1;
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
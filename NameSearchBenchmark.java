@@ -0,0 +1,239 @@
+package Service;
+
+import java.util.*;
+
+/**
+ * Recall and latency of NameIndex.fuzzySearch.
+ *
+ * Names are "first last", drawn Zipf-style from pools of made-up first and
+ * last names, so common names repeat as they do in a real register. Queries
+ * are stored names, whole or first name only, with random insertions,
+ * deletions and substitutions.
+ *
+ * - exact: on a small index, every query's result set must equal a
+ *   brute-force Levenshtein scan under the same rules (the whole name or a
+ *   run of as many words as the query, edits capped by the query length).
+ * - recall: on the large index, the share of queries whose source patient
+ *   is found, using the edit bound searchPatientsByNameFuzzy picks (one per
+ *   four letters, 1 to 3); "top 10" is the share whose source name (the
+ *   whole name, or the first name) is among the first ten results.
+ * - latency: mean and p99 of a search for the first ten results.
+ *
+ *   javac -d out *.java && java -Xmx2g -cp out Service.NameSearchBenchmark [names] [queries]
+ */
+public class NameSearchBenchmark {
+
+    private static final int FIRST_NAMES = 20_000;
+    private static final int LAST_NAMES = 60_000;
+    private static final int EXACT_NAMES = 20_000;
+    private static final int EXACT_QUERIES = 300;
+
+    private final Random random = new Random(7);
+    private final String[] firstNames = new String[FIRST_NAMES];
+    private final String[] lastNames = new String[LAST_NAMES];
+    private final double[] firstWeights = zipf(FIRST_NAMES);
+    private final double[] lastWeights = zipf(LAST_NAMES);
+
+    private NameSearchBenchmark() {
+        for (int i = 0; i < FIRST_NAMES; i++) {
+            firstNames[i] = word();
+        }
+        for (int i = 0; i < LAST_NAMES; i++) {
+            lastNames[i] = word();
+        }
+    }
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        NameSearchBenchmark benchmark = new NameSearchBenchmark();
+
+        int mismatches = benchmark.exact();
+        System.out.printf("exact: %d queries on %,d names, %d differ from brute force%n",
+                EXACT_QUERIES, EXACT_NAMES, mismatches);
+
+        String[] names = new String[size];
+        NameIndex index = new NameIndex();
+        long start = System.nanoTime();
+        for (int i = 0; i < size; i++) {
+            names[i] = benchmark.name();
+            index.add(i, names[i]);
+        }
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf("%,d names indexed in %d ms, %d MB heap in use%n", size,
+                (System.nanoTime() - start) / 1_000_000, (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+
+        System.out.printf("%-12s %6s %8s %8s %9s %9s%n", "query", "typos", "recall", "top 10", "mean ms", "p99 ms");
+        for (int typos = 1; typos <= 2; typos++) {
+            benchmark.measure(index, names, queries, typos, true);
+            benchmark.measure(index, names, queries, typos, false);
+        }
+        System.exit(mismatches == 0 ? 0 : 1);
+    }
+
+    // Queries that differ from a brute-force scan of a small index
+    private int exact() {
+        List<String> names = new ArrayList<>();
+        NameIndex index = new NameIndex();
+        for (int i = 0; i < EXACT_NAMES; i++) {
+            names.add(name());
+            index.add(i, names.get(i));
+        }
+        int mismatches = 0;
+        for (int q = 0; q < EXACT_QUERIES; q++) {
+            String source = names.get(random.nextInt(names.size()));
+            String query = NameIndex.normalize(mutate(random.nextBoolean() ? source : source.split(" ")[0],
+                    1 + random.nextInt(2)));
+            int edits = Math.min(2, (distinctGrams(query) - 1) / 3);
+
+            Set<Integer> expected = new HashSet<>();
+            for (int i = 0; i < names.size(); i++) {
+                if (closest(query, NameIndex.normalize(names.get(i))) <= edits) {
+                    expected.add(i);
+                }
+            }
+            Set<Integer> found = new HashSet<>();
+            for (NameIndex.Match match : index.fuzzySearch(query, 2, Integer.MAX_VALUE)) {
+                found.add(match.id);
+            }
+            if (!found.equals(expected)) {
+                mismatches++;
+            }
+        }
+        return mismatches;
+    }
+
+    private void measure(NameIndex index, String[] names, int queries, int typos, boolean fullName) {
+        int found = 0;
+        int topTen = 0;
+        long[] nanos = new long[queries];
+        for (int q = 0; q < queries; q++) {
+            int id = random.nextInt(names.length);
+            String source = fullName ? names[id] : names[id].split(" ")[0];
+            String query = mutate(source.toLowerCase(Locale.ROOT), typos);
+            int edits = Math.max(1, Math.min(3, NameIndex.normalize(query).length() / 4));
+
+            long start = System.nanoTime();
+            List<NameIndex.Match> first = index.fuzzySearch(query, edits, 10);
+            nanos[q] = System.nanoTime() - start;
+            for (NameIndex.Match match : first) {
+                if ((fullName ? names[match.id] : names[match.id].split(" ")[0]).equals(source)) {
+                    topTen++;
+                    break;
+                }
+            }
+            for (NameIndex.Match match : index.fuzzySearch(query, edits, Integer.MAX_VALUE)) {
+                if (match.id == id) {
+                    found++;
+                    break;
+                }
+            }
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%-12s %6d %7.1f%% %7.1f%% %9.2f %9.2f%n", fullName ? "full name" : "first name",
+                typos, 100.0 * found / queries, 100.0 * topTen / queries,
+                Arrays.stream(nanos).average().orElse(0) / 1e6, nanos[queries * 99 / 100] / 1e6);
+    }
+
+    // ===== REFERENCE =====
+
+    // Fewest edits from the query to the whole name or to a run of as many of its words
+    private static int closest(String query, String name) {
+        int best = levenshtein(query, name);
+        String[] words = name.split(" ");
+        int queryWords = query.split(" ").length;
+        for (int from = 0; words.length > queryWords && from + queryWords <= words.length; from++) {
+            String window = String.join(" ", Arrays.copyOfRange(words, from, from + queryWords));
+            best = Math.min(best, levenshtein(query, window));
+        }
+        return best;
+    }
+
+    private static int levenshtein(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] row = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            row[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitute = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                row[j] = Math.min(substitute, Math.min(previous[j], row[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = row;
+            row = swap;
+        }
+        return previous[b.length()];
+    }
+
+    // Distinct trigrams of the query padded as the index pads it
+    private static int distinctGrams(String query) {
+        String padded = "  " + query + " ";
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams.size();
+    }
+
+    // ===== DATA =====
+
+    private String name() {
+        return pick(firstNames, firstWeights) + " " + pick(lastNames, lastWeights);
+    }
+
+    private String mutate(String text, int edits) {
+        StringBuilder result = new StringBuilder(text);
+        for (int i = 0; i < edits; i++) {
+            int at = random.nextInt(result.length());
+            char letter = (char) ('a' + random.nextInt(26));
+            int kind = random.nextInt(3);
+            if (kind == 0) {
+                result.setCharAt(at, letter);
+            } else if (kind == 1 && result.length() > 3) {
+                result.deleteCharAt(at);
+            } else {
+                result.insert(at, letter);   // also when too short to lose a letter
+            }
+        }
+        return result.toString();
+    }
+
+    // A pronounceable made-up word of 4 to 9 letters, capitalized
+    private String word() {
+        String consonants = "bcdfghjklmnprstvwyz";
+        String vowels = "aeiou";
+        int length = 4 + random.nextInt(6);
+        StringBuilder word = new StringBuilder(length);
+        boolean consonant = random.nextInt(3) > 0;
+        for (int i = 0; i < length; i++) {
+            word.append(consonant ? consonants.charAt(random.nextInt(consonants.length()))
+                    : vowels.charAt(random.nextInt(vowels.length())));
+            consonant = random.nextInt(4) == 0 ? consonant : !consonant;
+        }
+        word.setCharAt(0, Character.toUpperCase(word.charAt(0)));
+        return word.toString();
+    }
+
+    private String pick(String[] pool, double[] weights) {
+        int i = Arrays.binarySearch(weights, random.nextDouble());
+        return pool[Math.min(pool.length - 1, i < 0 ? -i - 1 : i)];
+    }
+
+    // Cumulative Zipf weights over n ranks, ending at 1
+    private static double[] zipf(int n) {
+        double[] weights = new double[n];
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            total += 1.0 / (i + 1);
+            weights[i] = total;
+        }
+        for (int i = 0; i < n; i++) {
+            weights[i] /= total;
+        }
+        return weights;
+    }
+}
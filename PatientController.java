@@ -5,6 +5,12 @@
 #include <queue>
 #include <sstream>
 #include <map>
+#include <unordered_set>
+#include <cstdint>
+#ifdef _WIN32
+#include <io.h>
+#include <fcntl.h>
+#endif
 
 using namespace std;
 
@@ -26,6 +32,23 @@ class AppointmentRepository {
 private:
     AppointmentRecord* head;
     int idSeed;
+    unordered_set<string> booked; // doctorId|date|slot of SCHEDULED records
+
+    static string slotKey(int doctorId,
+                          const string& date,
+                          const string& slot) {
+        return to_string(doctorId) + "|" + date + "|" + slot;
+    }
+
+    static void writeRecord(ostream& out,
+                            const AppointmentRecord* rec) {
+        out << rec->id << ","
+            << rec->patientId << ","
+            << rec->doctorId << ","
+            << rec->date << ","
+            << rec->slot << ","
+            << rec->status << "\n";
+    }
 
     AppointmentRecord* create(int pid, int did,
                               const string& date,
@@ -42,17 +65,7 @@ public:
     bool isAvailable(int doctorId,
                      const string& date,
                      const string& slot) const {
-        AppointmentRecord* cur = head;
-        while (cur) {
-            if (cur->doctorId == doctorId &&
-                cur->date == date &&
-                cur->slot == slot &&
-                cur->status == "SCHEDULED") {
-                return false;
-            }
-            cur = cur->next;
-        }
-        return true;
+        return !booked.count(slotKey(doctorId, date, slot));
     }
 
     void insert(int patientId,
@@ -63,21 +76,23 @@ public:
             create(patientId, doctorId, date, slot);
         rec->next = head;
         head = rec;
+        booked.insert(slotKey(doctorId, date, slot));
     }
 
     void saveFile(const string& file) const {
         ofstream out(file);
-        AppointmentRecord* cur = head;
-
-        while (cur) {
-            out << cur->id << ","
-                << cur->patientId << ","
-                << cur->doctorId << ","
-                << cur->date << ","
-                << cur->slot << ","
-                << cur->status << "\n";
-            cur = cur->next;
-        }
+        writeAll(out);
+    }
+
+    void writeAll(ostream& out) const {
+        for (AppointmentRecord* cur = head; cur; cur = cur->next)
+            writeRecord(out, cur);
+    }
+
+    // Newest record only; loadFile reads appended records like saved ones
+    void appendLatest(ostream& out) const {
+        if (head)
+            writeRecord(out, head);
     }
 
     void loadFile(const string& file) {
@@ -99,6 +114,8 @@ public:
 
             rec->next = head;
             head = rec;
+            if (rec->status == "SCHEDULED")
+                booked.insert(slotKey(rec->doctorId, rec->date, rec->slot));
 
             idSeed = max(idSeed, rec->id + 1);
         }
@@ -175,13 +192,14 @@ public:
 SlotAvailabilityService slotService;
 
 /* =====================================================
-   FILE-BASED CONTROLLERS (GUI SAFE)
+   CONTROLLERS
+   Stream based, shared by the file handshake and the
+   persistent engine.
    ===================================================== */
 
 const string DATA_DIR = "../DataFiles/";
 
-void executeScheduling() {
-    ifstream in(DATA_DIR + "schedule_input.txt");
+bool executeScheduling(istream& in, ostream& out) {
     string line;
     getline(in, line);
 
@@ -189,13 +207,17 @@ void executeScheduling() {
     string temp, date, slot;
     int patientId, doctorId;
 
-    getline(ss, temp, ','); patientId = stoi(temp);
-    getline(ss, temp, ','); doctorId = stoi(temp);
+    try {
+        getline(ss, temp, ','); patientId = stoi(temp);
+        getline(ss, temp, ','); doctorId = stoi(temp);
+    }
+    catch (const exception&) {
+        out << "ERROR: Invalid patient or doctor id\n";
+        return false;
+    }
     getline(ss, date, ',');
     getline(ss, slot, ',');
 
-    ofstream out(DATA_DIR + "schedule_output.txt");
-
     if (appointmentRepo.isAvailable(doctorId, date, slot)) {
         appointmentRepo.insert(patientId, doctorId, date, slot);
         slotService.lockSlot(date, slot, doctorId);
@@ -203,17 +225,14 @@ void executeScheduling() {
         out << "SUCCESS\n";
         out << "Appointment booked: "
             << date << " " << slot << "\n";
+        return true;
     }
-    else {
-        out << "ERROR: Slot not available\n";
-    }
-
-    appointmentRepo.saveFile(DATA_DIR + "appointments.txt");
+    out << "ERROR: Slot not available\n";
+    return false;
 }
 
-void executeSlotQuery() {
-    ifstream in(DATA_DIR + "slots_query.txt");
-    int doctorId;
+void executeSlotQuery(istream& in, ostream& out) {
+    int doctorId = 0;
     string date;
 
     in >> doctorId;
@@ -223,37 +242,130 @@ void executeSlotQuery() {
     vector<string> slots =
         slotService.queryAvailable(date, doctorId);
 
-    ofstream out(DATA_DIR + "available_slots.txt");
     out << "AVAILABLE_SLOTS\n";
     for (const auto& s : slots)
         out << s << "\n";
 }
 
-void executeExport() {
-    appointmentRepo.saveFile(
-        DATA_DIR + "all_appointments.txt"
-    );
+/* =====================================================
+   FILE HANDSHAKE (GUI SAFE, one command per process)
+   ===================================================== */
+
+void runCommandFile() {
+    ifstream cmd(DATA_DIR + "schedule_command.txt");
+    string command;
+    getline(cmd, command);
+
+    if (command == "SCHEDULE_APPOINTMENT") {
+        ifstream in(DATA_DIR + "schedule_input.txt");
+        ofstream out(DATA_DIR + "schedule_output.txt");
+        executeScheduling(in, out);
+        appointmentRepo.saveFile(DATA_DIR + "appointments.txt");
+    }
+    else if (command == "GET_AVAILABLE_SLOTS") {
+        ifstream in(DATA_DIR + "slots_query.txt");
+        ofstream out(DATA_DIR + "available_slots.txt");
+        executeSlotQuery(in, out);
+    }
+    else if (command == "GET_ALL_APPOINTMENTS") {
+        appointmentRepo.saveFile(
+            DATA_DIR + "all_appointments.txt"
+        );
+    }
+}
+
+/* =====================================================
+   PERSISTENT ENGINE (--serve)
+   Frames: 4-byte big-endian length + payload.
+   Request: command name, newline, the text the command
+   would read from its input file. Reply: the text it
+   would write to its output file, in request order, so
+   clients may pipeline. Bookings are appended to
+   appointments.txt; output is flushed once the pending
+   requests are drained.
+   ===================================================== */
+
+bool readFrame(istream& in, string& payload) {
+    unsigned char header[4];
+    if (!in.read(reinterpret_cast<char*>(header), 4))
+        return false;
+
+    uint32_t length = (uint32_t(header[0]) << 24) |
+                      (uint32_t(header[1]) << 16) |
+                      (uint32_t(header[2]) << 8) |
+                      uint32_t(header[3]);
+    payload.resize(length);
+    return length == 0 ||
+           static_cast<bool>(in.read(&payload[0], length));
+}
+
+void writeFrame(ostream& out, const string& payload) {
+    uint32_t length = static_cast<uint32_t>(payload.size());
+    char header[4] = {
+        char(length >> 24), char(length >> 16),
+        char(length >> 8), char(length)
+    };
+    out.write(header, 4);
+    out.write(payload.data(), payload.size());
+}
+
+void serve() {
+#ifdef _WIN32
+    // Text mode would turn \n into \r\n and stop reading at a 0x1A byte
+    _setmode(_fileno(stdin), _O_BINARY);
+    _setmode(_fileno(stdout), _O_BINARY);
+#endif
+    ios::sync_with_stdio(false);
+    ofstream journal(DATA_DIR + "appointments.txt", ios::app);
+
+    string request;
+    while (readFrame(cin, request)) {
+        size_t nl = request.find('\n');
+        string command = request.substr(0, nl);
+        stringstream in(nl == string::npos
+                            ? string()
+                            : request.substr(nl + 1));
+        stringstream out;
+
+        if (command == "SCHEDULE_APPOINTMENT") {
+            if (executeScheduling(in, out))
+                appointmentRepo.appendLatest(journal);
+        }
+        else if (command == "GET_AVAILABLE_SLOTS")
+            executeSlotQuery(in, out);
+        else if (command == "GET_ALL_APPOINTMENTS")
+            appointmentRepo.writeAll(out);
+        else if (command == "QUIT") {
+            writeFrame(cout, "BYE\n");
+            break;
+        }
+        else
+            out << "ERROR: Unknown command " << command << "\n";
+
+        writeFrame(cout, out.str());
+
+        if (cin.rdbuf()->in_avail() <= 0) {
+            journal.flush();
+            cout.flush();
+        }
+    }
+    journal.flush();
+    cout.flush();
 }
 
 /* =====================================================
    APPLICATION ENTRY
    ===================================================== */
 
-int main() {
+int main(int argc, char* argv[]) {
     appointmentRepo.loadFile(
         DATA_DIR + "appointments.txt"
     );
 
-    ifstream cmd(DATA_DIR + "schedule_command.txt");
-    string command;
-    getline(cmd, command);
-
-    if (command == "SCHEDULE_APPOINTMENT")
-        executeScheduling();
-    else if (command == "GET_AVAILABLE_SLOTS")
-        executeSlotQuery();
-    else if (command == "GET_ALL_APPOINTMENTS")
-        executeExport();
+    if (argc > 1 && string(argv[1]) == "--serve")
+        serve();
+    else
+        runCommandFile();
 
     return 0;
 }
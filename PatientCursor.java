@@ -0,0 +1,64 @@
+package Service;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Iterates patient records in id order one page at a time, so callers
+ * never hold more than pageSize records from the store.
+ */
+public class PatientCursor implements Iterator<String> {
+
+    private final PatientLog log;
+    private final int pageSize;
+    private int nextId;
+    private List<String> page = Collections.emptyList();
+    private int position;
+    private boolean exhausted;
+
+    PatientCursor(PatientLog log, int startId, int pageSize) {
+        this.log = log;
+        this.nextId = startId;
+        this.pageSize = Math.max(1, pageSize);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (position < page.size()) {
+            return true;
+        }
+        if (exhausted) {
+            return false;
+        }
+        try {
+            PatientLog.Page next = log.page(nextId, pageSize);
+            page = next.records;
+            position = 0;
+            exhausted = !next.hasMore || next.lastId == Integer.MAX_VALUE;
+            if (!page.isEmpty()) {
+                nextId = next.lastId + 1;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return position < page.size();
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.get(position++);
+    }
+
+    /** The records of the next page, or an empty list at the end. */
+    public List<String> nextPage() {
+        if (!hasNext()) {
+            return Collections.emptyList();
+        }
+        List<String> rest = page.subList(position, page.size());
+        position = page.size();
+        return rest;
+    }
+}
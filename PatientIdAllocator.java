@@ -0,0 +1,83 @@
+package Service;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out patient ids.
+ *
+ * The high-water mark is recovered at startup as the larger of the highest
+ * stored id + 1 and the floor kept in patients.hwm. The floor is only
+ * written when stored ids go away (clearing the store), so ids are never
+ * reused for records that other data may still refer to.
+ *
+ * Allocation is a single atomic add: next() takes one id, reserve(n) takes
+ * a block of n consecutive ids for a bulk import, and observe() moves the
+ * mark past ids that were chosen by the caller.
+ */
+class PatientIdAllocator {
+
+    private final Path floorPath;
+    private final AtomicInteger next;
+
+    PatientIdAllocator(Path floorPath, int highestStoredId) throws IOException {
+        this.floorPath = floorPath;
+        int start = Math.max(1, highestStoredId == Integer.MAX_VALUE ? highestStoredId : highestStoredId + 1);
+        this.next = new AtomicInteger(Math.max(start, readFloor()));
+    }
+
+    int next() {
+        return reserve(1);
+    }
+
+    /** Returns the first id of a block of count consecutive ids. */
+    int reserve(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be positive: " + count);
+        }
+        int first = next.getAndAdd(count);
+        if (first < 1 || first + count - 1 < first) {
+            throw new IllegalStateException("Patient ids exhausted");
+        }
+        return first;
+    }
+
+    /** Makes sure later allocations come after an id assigned elsewhere. */
+    void observe(int id) {
+        if (id >= 1 && id < Integer.MAX_VALUE) {
+            next.accumulateAndGet(id + 1, Math::max);
+        }
+    }
+
+    /** The id the next allocation will start from. */
+    int peek() {
+        return next.get();
+    }
+
+    /** Persists the current mark so it survives the stored ids being removed. */
+    synchronized void persistFloor() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4).putInt(next.get());
+        buffer.flip();
+
+        Path temp = floorPath.resolveSibling(floorPath.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, floorPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private int readFloor() throws IOException {
+        if (!Files.exists(floorPath)) {
+            return 1;
+        }
+        byte[] bytes = Files.readAllBytes(floorPath);
+        return bytes.length == 4 ? ByteBuffer.wrap(bytes).getInt() : 1;
+    }
+}
@@ -0,0 +1,525 @@
+package Service;
+
+import model.PatientTable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Binary append-only patient store.
+ *
+ * patients.seg holds records framed like WriteAheadLog records:
+ *   [int length][int crc32c][int id][byte age][short len][name][short len][disease][short len][phone]
+ * patients.idx is a sidecar of fixed 12-byte entries [int id][long offset],
+ * so a record is located by id without decoding any other record.
+ * Records are read through FileChannel.map; appends go through a
+ * GroupCommitWriter so concurrent callers share one write per batch.
+ * The sidecar is not mapped: it is read once on open with positional
+ * reads into a heap buffer and may then be truncated, which a live
+ * mapping would prevent on some platforms.
+ *
+ * The sidecar doubles as the checkpoint: on open only the records after
+ * the last indexed one are verified, and a torn or corrupt tail is cut off.
+ */
+public class PatientLog implements Closeable {
+
+    private static final int INDEX_ENTRY_BYTES = 12;
+
+    private final Path segmentPath;
+    private final FileChannel segment;
+    private final FileChannel index;
+    private final GroupCommitWriter segmentWriter;
+    private final GroupCommitWriter indexWriter;
+
+    private MappedByteBuffer segmentMap;
+
+    // Entries in append order, plus an open-addressing table of entry positions
+    private int[] ids = new int[1024];
+    private long[] offsets = new long[1024];
+    private int count;
+    private int[] slots = new int[2048];
+
+    // Entry positions in id order. The sidecar is already in id order when ids
+    // are allocated ascending, so this is only re-sorted after out-of-order appends.
+    private int[] order = new int[1024];
+    private boolean ordered = true;
+
+    // Bumped by clear, so a failed write from before it unindexes nothing after it
+    private int generation;
+
+    // Reused by decode, which runs under the log's lock
+    private final CsvCodec.Writer recordWriter = new CsvCodec.Writer(128);
+
+    private PatientLog(Path segmentPath, Path indexPath,
+                       GroupCommitWriter.Durability durability, long fsyncIntervalMillis) throws IOException {
+        this.segmentPath = segmentPath;
+        this.segment = FileChannel.open(segmentPath,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.index = FileChannel.open(indexPath,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        // Recover before any mapping exists, so both files can still be truncated
+        List<long[]> unindexed = recover();
+
+        this.segmentWriter = new GroupCommitWriter("patient-log-writer", segment,
+                durability, fsyncIntervalMillis);
+        // The sidecar is rebuilt from the segment on open, so it never needs fsync
+        this.indexWriter = new GroupCommitWriter("patient-index-writer", index,
+                GroupCommitWriter.Durability.OS_BUFFERED, 0);
+        for (long[] entry : unindexed) {
+            appendIndexEntry((int) entry[0], entry[1]);
+        }
+    }
+
+    /**
+     * Opens the log in the given folder. If no log exists yet but the legacy
+     * text file does, its rows are imported once.
+     */
+    public static PatientLog open(String dataPath, String legacyTextFile,
+                                  GroupCommitWriter.Durability durability, long fsyncIntervalMillis) throws IOException {
+        Path segmentPath = Paths.get(dataPath, "patients.seg");
+        boolean fresh = !Files.exists(segmentPath);
+
+        PatientLog log = new PatientLog(segmentPath, Paths.get(dataPath, "patients.idx"),
+                durability, fsyncIntervalMillis);
+        if (fresh && legacyTextFile != null && Files.exists(Paths.get(legacyTextFile))) {
+            int imported = log.importTextFile(Paths.get(legacyTextFile));
+            System.out.println("✅ Imported " + imported + " patients from " + legacyTextFile);
+        }
+        return log;
+    }
+
+    // ===== WRITES =====
+
+    /**
+     * Queues the record and indexes it immediately; the returned future
+     * completes once the record has reached the log's durability level.
+     * If the write fails the record is unindexed before the future fails.
+     */
+    public synchronized CompletableFuture<Long> append(int id, String name, int age, String disease, String phone) {
+        ByteBuffer record = encode(id, name, age, disease, phone);
+        long offset = segmentWriter.position();
+        CompletableFuture<Long> written = segmentWriter.append(record);
+        appendIndexEntry(id, offset);
+        return unindexOnFailure(written, offset);
+    }
+
+    /**
+     * Appends the first count rows as one batch: a single buffer handed to
+     * the writer, so the whole batch costs one write. If it fails, none of
+     * the rows stays indexed.
+     */
+    public synchronized CompletableFuture<Long> appendBatch(int[] ids, String[] names, int[] ages,
+                                                            String[] diseases, String[] phones, int count) {
+        ByteBuffer[] records = new ByteBuffer[count];
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            records[i] = encode(ids[i], names[i], ages[i], diseases[i], phones[i]);
+            total += records[i].remaining();
+        }
+
+        ByteBuffer batch = ByteBuffer.allocate(total);
+        long offset = segmentWriter.position();
+        for (int i = 0; i < count; i++) {
+            int length = records[i].remaining();
+            batch.put(records[i]);
+            appendIndexEntry(ids[i], offset);
+            offset += length;
+        }
+        batch.flip();
+        long start = segmentWriter.position();
+        return unindexOnFailure(segmentWriter.append(batch), start);
+    }
+
+    // A failed write fails every record queued after it too, so the entries from its
+    // offset on are dropped; off the writer thread, which loadInto and decode may be
+    // waiting on under this log's lock
+    private CompletableFuture<Long> unindexOnFailure(CompletableFuture<Long> written, long offset) {
+        int epoch = generation;
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        written.whenComplete((position, e) -> {
+            if (e == null) {
+                result.complete(position);
+            } else {
+                CompletableFuture.runAsync(() -> unindexFrom(offset, epoch))
+                        .whenComplete((v, unindexError) -> result.completeExceptionally(e));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Imports "id,name,age,disease,phone" rows from the old text format.
+     * Malformed rows are skipped. Returns the number of imported rows.
+     */
+    public synchronized int importTextFile(Path textFile) throws IOException {
+        int imported = 0;
+        CompletableFuture<Long> last = CompletableFuture.completedFuture(0L);
+        int[] bounds = new int[10];
+        try (CsvCodec.LineReader reader = new CsvCodec.LineReader(Files.newInputStream(textFile), 1 << 16)) {
+            byte[] block;
+            while ((block = reader.nextBlock(1 << 16)) != null) {
+                for (int pos = 0; pos < block.length; ) {
+                    int eol = CsvCodec.lineEnd(block, pos, block.length);
+                    int to = eol > pos && block[eol - 1] == '\r' ? eol - 1 : eol;
+                    int fields = CsvCodec.scan(block, pos, to, bounds);
+                    pos = eol + 1;
+
+                    int id = CsvCodec.parseInt(block, bounds[0], bounds[1]);
+                    int age = CsvCodec.parseInt(block, bounds[4], bounds[5]);
+                    if (fields < 5 || id == CsvCodec.INVALID || age == CsvCodec.INVALID) {
+                        continue; // skip malformed row
+                    }
+                    last = append(id, CsvCodec.string(block, bounds[2], bounds[3]), age,
+                            CsvCodec.string(block, bounds[6], bounds[7]),
+                            CsvCodec.string(block, bounds[8], bounds[9]));
+                    imported++;
+                }
+            }
+        }
+        last.join();
+        return imported;
+    }
+
+    public synchronized void clear() throws IOException {
+        segmentMap = null;
+        segmentWriter.truncate(0);
+        indexWriter.truncate(0);
+        count = 0;
+        Arrays.fill(slots, 0);
+        ordered = true;
+        generation++;
+    }
+
+    // ===== READS =====
+
+    /**
+     * Loads every indexed record into the table in append order. Names are
+     * copied as bytes and phones packed from digits, so no per-row Strings
+     * are built apart from the (dictionary-encoded) disease.
+     */
+    public synchronized void loadInto(PatientTable table) throws IOException {
+        if (count == 0) {
+            return;
+        }
+        segmentWriter.awaitWritten(offsets[count - 1] + 1);
+        ByteBuffer view = mappedSegment().duplicate();
+        byte[] name = new byte[64];
+
+        for (int i = 0; i < count; i++) {
+            view.position((int) offsets[i] + WriteAheadLog.HEADER_BYTES);
+            int id = view.getInt();
+            int age = view.get() & 0xFF;
+
+            int nameLength = view.getShort() & 0xFFFF;
+            if (nameLength > name.length) {
+                name = new byte[nameLength];
+            }
+            view.get(name, 0, nameLength);
+            String disease = readString(view);
+
+            int phoneLength = view.getShort() & 0xFFFF;
+            long phone = phoneLength == 0 ? -1 : 0;
+            for (int j = 0; j < phoneLength; j++) {
+                int digit = view.get() - '0';
+                phone = phone >= 0 && digit >= 0 && digit <= 9 ? phone * 10 + digit : -1;
+            }
+
+            table.add(id, name, 0, nameLength, age, disease, phone);
+        }
+    }
+    public synchronized boolean contains(int id) {
+        return find(id) >= 0;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    /** Returns the record as an "id,name,age,disease,phone" line, or null if absent. */
+    public synchronized String read(int id) throws IOException {
+        int entry = find(id);
+        return entry < 0 ? null : decode(offsets[entry]);
+    }
+
+    /** All records ordered by id. Prefer page() for large stores. */
+    public synchronized List<String> readAllSorted() throws IOException {
+        return pageAt(0, count).records;
+    }
+
+    /** One page of records in id order, starting at the first id >= startId. */
+    public synchronized Page page(int startId, int pageSize) throws IOException {
+        ensureOrdered();
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ids[order[mid]] < startId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return readPage(low, pageSize);
+    }
+
+    /** Page number pageIndex (0-based) of the id-ordered records. */
+    public synchronized Page pageAt(int pageIndex, int pageSize) throws IOException {
+        ensureOrdered();
+        return readPage((int) Math.min((long) pageIndex * pageSize, count), pageSize);
+    }
+
+    /** A page of "id,name,age,disease,phone" records. */
+    public static class Page {
+        public final List<String> records;
+        public final int lastId;
+        public final boolean hasMore;
+
+        Page(List<String> records, int lastId, boolean hasMore) {
+            this.records = records;
+            this.lastId = lastId;
+            this.hasMore = hasMore;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        segmentWriter.close();
+        indexWriter.close();
+        segment.close();
+        index.close();
+    }
+
+    // ===== ENCODING =====
+    static ByteBuffer encode(int id, String name, int age, String disease, String phone) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        byte[] diseaseBytes = disease.getBytes(StandardCharsets.UTF_8);
+        byte[] phoneBytes = phone.getBytes(StandardCharsets.UTF_8);
+        int length = 4 + 1 + 6 + nameBytes.length + diseaseBytes.length + phoneBytes.length;
+
+        ByteBuffer buffer = ByteBuffer.allocate(WriteAheadLog.HEADER_BYTES + length);
+        buffer.putInt(length);
+        buffer.putInt(0); // checksum, filled in below
+        buffer.putInt(id);
+        buffer.put((byte) age);
+        buffer.putShort((short) nameBytes.length).put(nameBytes);
+        buffer.putShort((short) diseaseBytes.length).put(diseaseBytes);
+        buffer.putShort((short) phoneBytes.length).put(phoneBytes);
+        buffer.flip();
+        buffer.putInt(4, WriteAheadLog.checksum(buffer, WriteAheadLog.HEADER_BYTES, length));
+        return buffer;
+    }
+
+    // Copies the stored bytes straight into the record; only the final String is built
+    private String decode(long offset) throws IOException {
+        segmentWriter.awaitWritten(offset + 1);
+        ByteBuffer view = mappedSegment().duplicate();
+        view.position((int) offset + WriteAheadLog.HEADER_BYTES);
+
+        int id = view.getInt();
+        int age = view.get() & 0xFF;
+        CsvCodec.Writer record = recordWriter.reset().field(id);
+        record.field(view, view.getShort() & 0xFFFF).field(age);
+        record.field(view, view.getShort() & 0xFFFF);
+        record.field(view, view.getShort() & 0xFFFF);
+        return record.toString();
+    }
+
+    private Page readPage(int from, int pageSize) throws IOException {
+        int to = (int) Math.min((long) from + pageSize, count);
+        List<String> records = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            records.add(decode(offsets[order[i]]));
+        }
+        int lastId = to > from ? ids[order[to - 1]] : Integer.MIN_VALUE;
+        return new Page(records, lastId, to < count);
+    }
+
+    private static String readString(ByteBuffer view) {
+        byte[] bytes = new byte[view.getShort() & 0xFFFF];
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private MappedByteBuffer mappedSegment() throws IOException {
+        // Map only what the writer has written; mapping past the end would grow the file
+        long written = segmentWriter.writtenPosition();
+        if (segmentMap == null || segmentMap.capacity() < written) {
+            if (written > Integer.MAX_VALUE) {
+                throw new IOException("Patient segment exceeds 2 GB: " + segmentPath);
+            }
+            segmentMap = segment.map(FileChannel.MapMode.READ_ONLY, 0, written);
+        }
+        return segmentMap;
+    }
+
+    // ===== RECOVERY =====
+
+    /**
+     * Loads the sidecar, verifies the records it does not cover and truncates
+     * a bad tail. Returns (id, offset) pairs that still need a sidecar entry.
+     */
+    private List<long[]> recover() throws IOException {
+        long segmentSize = segment.size();
+        ByteBuffer entries = readFully(index, 0, index.size() - index.size() % INDEX_ENTRY_BYTES);
+
+        // Trust the sidecar up to the last entry whose record checks out
+        int indexed = entries.limit() / INDEX_ENTRY_BYTES;
+        while (indexed > 0 && !isValidRecord(entries.getLong((indexed - 1) * INDEX_ENTRY_BYTES + 4), segmentSize)) {
+            indexed--;
+        }
+        long indexedEnd = 0;
+        for (int i = 0; i < indexed; i++) {
+            long offset = entries.getLong(i * INDEX_ENTRY_BYTES + 4);
+            addEntry(entries.getInt(i * INDEX_ENTRY_BYTES), offset);
+            indexedEnd = offset;
+        }
+        if (indexed > 0) {
+            indexedEnd += WriteAheadLog.HEADER_BYTES + readFully(segment, indexedEnd, 4).getInt(0);
+        }
+        index.truncate((long) indexed * INDEX_ENTRY_BYTES);
+
+        // The sidecar may lag the segment after a crash; verify and index the rest
+        ByteBuffer tail = readFully(segment, indexedEnd, segmentSize - indexedEnd);
+        int validEnd = WriteAheadLog.validEnd(tail, 0);
+        List<long[]> unindexed = new ArrayList<>();
+        for (int position = 0; position < validEnd; position += WriteAheadLog.HEADER_BYTES + tail.getInt(position)) {
+            long offset = indexedEnd + position;
+            addEntry(tail.getInt(position + WriteAheadLog.HEADER_BYTES), offset);
+            unindexed.add(new long[]{tail.getInt(position + WriteAheadLog.HEADER_BYTES), offset});
+        }
+        if (indexedEnd + validEnd < segmentSize) {
+            System.out.println("⚠ Truncating corrupt tail of " + segmentPath + " at byte " + (indexedEnd + validEnd));
+            segment.truncate(indexedEnd + validEnd);
+        }
+        return unindexed;
+    }
+
+    private boolean isValidRecord(long offset, long segmentSize) throws IOException {
+        if (offset < 0 || offset + WriteAheadLog.HEADER_BYTES > segmentSize) {
+            return false;
+        }
+        int length = readFully(segment, offset, 4).getInt(0);
+        if (length <= 0 || offset + WriteAheadLog.HEADER_BYTES + length > segmentSize) {
+            return false;
+        }
+        ByteBuffer record = readFully(segment, offset, WriteAheadLog.HEADER_BYTES + length);
+        return WriteAheadLog.validEnd(record, 0) == record.limit();
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, long length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    // ===== OFFSET INDEX =====
+    private void appendIndexEntry(int id, long offset) {
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+        entry.putInt(id).putLong(offset).flip();
+        indexWriter.append(entry);
+        addEntry(id, offset);
+    }
+
+    // Drops the entries of records at or after the offset, in memory and in the sidecar
+    private synchronized void unindexFrom(long offset, int epoch) {
+        int kept = count;
+        while (kept > 0 && offsets[kept - 1] >= offset) {
+            kept--;
+        }
+        if (epoch != generation || kept == count) {
+            return;
+        }
+        count = kept;
+        Arrays.fill(slots, 0);
+        for (int i = 0; i < count; i++) {
+            insertSlot(i);
+        }
+        ordered = false; // order may point at dropped entries
+        try {
+            indexWriter.truncate((long) count * INDEX_ENTRY_BYTES);
+        } catch (IOException e) {
+            // recover() checks every sidecar entry against the segment on open
+        }
+    }
+
+    private void addEntry(int id, long offset) {
+        if (find(id) >= 0) {
+            return; // first record for an id wins, as with the text file
+        }
+        if (count == ids.length) {
+            ids = Arrays.copyOf(ids, count * 2);
+            offsets = Arrays.copyOf(offsets, count * 2);
+            order = Arrays.copyOf(order, count * 2);
+        }
+        if (ordered && count > 0 && ids[order[count - 1]] > id) {
+            ordered = false;
+        }
+        ids[count] = id;
+        offsets[count] = offset;
+        order[count] = count;
+        count++;
+        if (count * 2 > slots.length) {
+            slots = new int[slots.length * 2];
+            for (int i = 0; i < count; i++) {
+                insertSlot(i);
+            }
+        } else {
+            insertSlot(count - 1);
+        }
+    }
+
+    private void ensureOrdered() {
+        if (ordered) {
+            return;
+        }
+        // Sort (id, entry) pairs packed into longs
+        long[] pairs = new long[count];
+        for (int i = 0; i < count; i++) {
+            pairs[i] = ((long) ids[i] << 32) | i;
+        }
+        Arrays.sort(pairs);
+        for (int i = 0; i < count; i++) {
+            order[i] = (int) pairs[i];
+        }
+        ordered = true;
+    }
+
+    private void insertSlot(int entry) {
+        int mask = slots.length - 1;
+        int slot = mix(ids[entry]) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = entry + 1;
+    }
+
+    private int find(int id) {
+        int mask = slots.length - 1;
+        int slot = mix(id) & mask;
+        int entry;
+        while ((entry = slots[slot]) != 0) {
+            if (ids[entry - 1] == id) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,232 @@
+package model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Columnar in-memory store of Patient records.
+ * Instead of one Patient object and five Strings per row, each field is a
+ * primitive column:
+ *   ids       int[]
+ *   ages      byte[]
+ *   phones    long[]   (the 11 digits packed into a long, -1 if not numeric)
+ *   diseases  int[]    (codes into a shared StringDictionary)
+ *   priorities byte[]  (triage level set by the service after the row is added; 0 until then)
+ *   names     one UTF-8 byte arena, addressed by int start offsets
+ * Patient objects are created on demand by get(row).
+ *
+ * Appends are synchronized; readers first read size() and then only touch
+ * rows below it, so scans run without locking.
+ */
+public class PatientTable {
+
+    private final StringDictionary diseaseDictionary = new StringDictionary();
+
+    private int[] ids;
+    private byte[] ages;
+    private long[] phones;
+    private int[] diseases;
+    private byte[] priorities;
+    private int[] nameStarts;   // nameStarts[row + 1] ends the name of row
+    private byte[] nameArena;
+
+    private volatile int size;
+
+    // Primary key: id -> row, open addressing
+    private int[] slots;
+
+    /* ==============================
+       CONSTRUCTOR
+       ============================== */
+
+    public PatientTable(int expectedRows) {
+        int capacity = Math.max(16, expectedRows);
+        ids = new int[capacity];
+        ages = new byte[capacity];
+        phones = new long[capacity];
+        diseases = new int[capacity];
+        priorities = new byte[capacity];
+        nameStarts = new int[capacity + 1];
+        nameArena = new byte[capacity * 12];
+        slots = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+    }
+
+    /* ==============================
+       APPENDS
+       ============================== */
+
+    /** Adds a row; returns its index, or -1 if the id is already present. */
+    public synchronized int add(int id, String name, int age, String disease, String phone) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        return add(id, nameBytes, 0, nameBytes.length, age, disease, packPhone(phone));
+    }
+
+    /** Adds a row from raw name bytes and a packed phone, without building Strings. */
+    public synchronized int add(int id, byte[] name, int nameOffset, int nameLength,
+                                int age, String disease, long phone) {
+        if (rowOf(id) >= 0) {
+            return -1;
+        }
+        int row = size;
+        ensureCapacity(row + 1, nameStarts[row] + nameLength);
+
+        ids[row] = id;
+        ages[row] = (byte) age;
+        phones[row] = phone;
+        diseases[row] = diseaseDictionary.encode(disease);
+        priorities[row] = 0;
+        System.arraycopy(name, nameOffset, nameArena, nameStarts[row], nameLength);
+        nameStarts[row + 1] = nameStarts[row] + nameLength;
+        insertSlot(id, row);
+
+        size = row + 1; // publish the row
+        return row;
+    }
+
+    public synchronized void clear() {
+        size = 0;
+        Arrays.fill(slots, 0);
+    }
+
+    /* ==============================
+       COLUMN ACCESS
+       ============================== */
+
+    public int size() {
+        return size;
+    }
+
+    public synchronized int rowOf(int id) {
+        int mask = slots.length - 1;
+        int slot = mix(id) & mask;
+        int entry;
+        while ((entry = slots[slot]) != 0) {
+            if (ids[entry - 1] == id) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public int id(int row) {
+        return ids[row];
+    }
+
+    public int age(int row) {
+        return ages[row] & 0xFF;
+    }
+
+    public long packedPhone(int row) {
+        return phones[row];
+    }
+
+    public String phone(int row) {
+        return unpackPhone(phones[row]);
+    }
+
+    public int diseaseCode(int row) {
+        return diseases[row];
+    }
+
+    public String disease(int row) {
+        return diseaseDictionary.decode(diseases[row]);
+    }
+
+    public int priority(int row) {
+        return priorities[row];
+    }
+
+    public synchronized void setPriority(int row, int priority) {
+        priorities[row] = (byte) priority;
+    }
+
+    public StringDictionary diseaseDictionary() {
+        return diseaseDictionary;
+    }
+
+    public String name(int row) {
+        int start = nameStarts[row];
+        return new String(nameArena, start, nameStarts[row + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    /** Lightweight Patient view of a row, built on demand. */
+    public Patient get(int row) {
+        return new Patient(id(row), name(row), age(row), disease(row), phone(row));
+    }
+
+    /** The row as an "id,name,age,disease,phone" record. */
+    public String record(int row) {
+        return new StringBuilder(64)
+                .append(id(row)).append(',').append(name(row)).append(',').append(age(row))
+                .append(',').append(disease(row)).append(',').append(phone(row))
+                .toString();
+    }
+
+    /* ==============================
+       PHONE PACKING
+       ============================== */
+
+    /** Packs an 11-digit phone into a long; -1 if it is not all digits. */
+    public static long packPhone(String phone) {
+        if (phone == null || phone.isEmpty() || phone.length() > 18) {
+            return -1;
+        }
+        long packed = 0;
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            packed = packed * 10 + (c - '0');
+        }
+        return packed;
+    }
+
+    public static String unpackPhone(long packed) {
+        if (packed < 0) {
+            return "";
+        }
+        String digits = Long.toString(packed);
+        return digits.length() >= 11 ? digits : "00000000000".substring(digits.length()) + digits;
+    }
+
+    /* ==============================
+       INTERNALS
+       ============================== */
+
+    private void ensureCapacity(int rows, int arenaBytes) {
+        if (rows > ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            phones = Arrays.copyOf(phones, capacity);
+            diseases = Arrays.copyOf(diseases, capacity);
+            priorities = Arrays.copyOf(priorities, capacity);
+            nameStarts = Arrays.copyOf(nameStarts, capacity + 1);
+        }
+        if (arenaBytes > nameArena.length) {
+            nameArena = Arrays.copyOf(nameArena, Math.max(arenaBytes, nameArena.length * 2));
+        }
+        if (rows * 2 > slots.length) {
+            slots = new int[slots.length * 2];
+            for (int row = 0; row < size; row++) {
+                insertSlot(ids[row], row);
+            }
+        }
+    }
+
+    private void insertSlot(int id, int row) {
+        int mask = slots.length - 1;
+        int slot = mix(id) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = row + 1;
+    }
+
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
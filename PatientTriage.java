@@ -0,0 +1,105 @@
+package Service;
+
+import model.PatientTable;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+/**
+ * Triage levels of the patients in a PatientTable.
+ *
+ * Each row is classified once, when it is added, and its level is stored
+ * in the table's priority column and its patient id in a per-level
+ * CompressedBitmap, so "who is critical" is a bitmap read instead of a
+ * scan of every disease, and can be combined with other id bitmaps.
+ * Keyword matching runs once per distinct disease code; only the age
+ * rules are applied per patient.
+ *
+ * The dictionary file is re-read when its modification time changes
+ * (checked by reloadIfChanged); every row is then classified again under
+ * the new rules, without a restart.
+ */
+class PatientTriage {
+
+    private final PatientTable table;
+    private final Path dictionary;
+
+    private TriageClassifier classifier;
+    private FileTime loadedModified;
+    private int[] diseaseLevels = new int[0];    // per disease code, 0 = not matched yet
+    private final CompressedBitmap[] ids = new CompressedBitmap[TriageClassifier.NORMAL + 1];
+
+    private PatientTriage(PatientTable table, Path dictionary) {
+        this.table = table;
+        this.dictionary = dictionary;
+    }
+
+    /** Loads the dictionary (writing the default one if missing) and classifies every row. */
+    static PatientTriage open(PatientTable table, Path dictionary) throws IOException {
+        PatientTriage triage = new PatientTriage(table, dictionary);
+        triage.reload();
+        return triage;
+    }
+
+    // ===== CLASSIFYING =====
+
+    /** Classifies a newly added row and indexes it under its level. */
+    synchronized int classify(int row) {
+        int level = classifier.classify(diseaseLevel(table.diseaseCode(row)), table.age(row));
+        table.setPriority(row, level);
+        ids[level].add(table.id(row));
+        return level;
+    }
+
+    private int diseaseLevel(int code) {
+        if (code >= diseaseLevels.length) {
+            diseaseLevels = Arrays.copyOf(diseaseLevels, Math.max(code + 1, diseaseLevels.length * 2));
+        }
+        if (diseaseLevels[code] == 0) {
+            diseaseLevels[code] = classifier.diseaseLevel(table.diseaseDictionary().decode(code));
+        }
+        return diseaseLevels[code];
+    }
+
+    // ===== QUERIES =====
+
+    /** Ids of the patients at the level, as a copy. */
+    synchronized CompressedBitmap ids(int level) {
+        return ids[level].copy();
+    }
+
+    synchronized int count(int level) {
+        return ids[level].cardinality();
+    }
+
+    // ===== RELOADING =====
+
+    /** Reloads the dictionary if the file changed since it was read; returns whether it did. */
+    synchronized boolean reloadIfChanged() throws IOException {
+        if (Files.exists(dictionary) && Files.getLastModifiedTime(dictionary).equals(loadedModified)) {
+            return false;
+        }
+        reload();
+        return true;
+    }
+
+    /** Re-reads the dictionary and classifies every row again. */
+    synchronized void reload() throws IOException {
+        classifier = TriageClassifier.load(dictionary);
+        loadedModified = Files.getLastModifiedTime(dictionary);
+        diseaseLevels = new int[table.diseaseDictionary().size()];
+        clear();
+        for (int row = 0, size = table.size(); row < size; row++) {
+            classify(row);
+        }
+    }
+
+    /** Forgets every row, for when the table is cleared. */
+    synchronized void clear() {
+        for (int level = 0; level < ids.length; level++) {
+            ids[level] = new CompressedBitmap();
+        }
+    }
+}
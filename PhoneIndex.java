@@ -0,0 +1,146 @@
+package Service;
+
+import model.PatientTable;
+
+import java.util.Arrays;
+
+/**
+ * Phone number -> patient row index, for identifying callers.
+ *
+ * One long[] of slots, open addressing with linear probing. A slot packs
+ * the phone (11 digits fit in 37 bits) with the patient's PatientTable row
+ * (27 bits): ((phone + 1) << 27) | row, so 0 marks an empty slot and no
+ * key is ever boxed or held as a String. Several patients may share a
+ * phone (families, carers); each gets its own slot and they are found by
+ * the same probe.
+ *
+ * The table size is any integer, not a power of two, and a hash is mapped
+ * onto it by multiply-shift. Growing to size / 0.6 when the load passes
+ * 0.8 keeps the load between 0.6 and 0.8, i.e. 10 to 13.4 bytes per entry.
+ */
+class PhoneIndex {
+
+    private static final int PHONE_BITS = 37;
+    private static final int ROW_BITS = 64 - PHONE_BITS;
+
+    private static final long MAX_PHONE = (1L << PHONE_BITS) - 2;
+    private static final int MAX_ROW = (1 << ROW_BITS) - 1;
+    private static final long ROW_MASK = MAX_ROW;
+    private static final double MAX_LOAD = 0.8;
+    private static final double GROWN_LOAD = 0.6;
+
+    private long[] slots;
+    private int size;
+
+    PhoneIndex(int expectedSize) {
+        slots = new long[capacityFor(expectedSize)];
+    }
+
+    static PhoneIndex build(PatientTable table) {
+        int rows = table.size();
+        PhoneIndex index = new PhoneIndex(rows);
+        for (int row = 0; row < rows; row++) {
+            index.add(table.packedPhone(row), row);
+        }
+        return index;
+    }
+
+    /** Whether the packed phone can be indexed; -1 (not numeric) and over-long numbers cannot. */
+    static boolean indexable(long phone) {
+        return phone >= 0 && phone <= MAX_PHONE;
+    }
+
+    // ===== LOOKUP =====
+
+    /** Every row holding the phone, ascending. */
+    synchronized int[] rows(long phone) {
+        if (!indexable(phone)) {
+            return new int[0];
+        }
+        long tag = tag(phone);
+        int[] rows = new int[2];
+        int count = 0;
+        for (int slot = home(phone); slots[slot] != 0; slot = next(slot)) {
+            if ((slots[slot] & ~ROW_MASK) == tag) {
+                if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, count * 2);
+                }
+                rows[count++] = (int) (slots[slot] & ROW_MASK);
+            }
+        }
+        rows = Arrays.copyOf(rows, count);
+        Arrays.sort(rows);
+        return rows;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    // ===== UPDATES =====
+
+    /**
+     * Indexes the row under the phone; returns a row that already had the
+     * phone, or -1 if it is new. Phones that are not indexable are skipped.
+     */
+    synchronized int add(long phone, int row) {
+        if (!indexable(phone)) {
+            return -1;
+        }
+        if (row < 0 || row > MAX_ROW) {
+            throw new IllegalArgumentException("Row out of range for the phone index: " + row);
+        }
+        long tag = tag(phone);
+        int existing = -1;
+        int slot = home(phone);
+        for (; slots[slot] != 0; slot = next(slot)) {
+            if (existing < 0 && (slots[slot] & ~ROW_MASK) == tag) {
+                existing = (int) (slots[slot] & ROW_MASK);
+            }
+        }
+        slots[slot] = tag | row;
+        if (++size > slots.length * MAX_LOAD) {
+            rehash(capacityFor(size));
+        }
+        return existing;
+    }
+
+    synchronized void clear() {
+        slots = new long[capacityFor(0)];
+        size = 0;
+    }
+
+    // ===== INTERNALS =====
+    private static long tag(long phone) {
+        return (phone + 1) << ROW_BITS;
+    }
+
+    // Slot the phone's probe starts at: the hash scaled onto [0, slots.length)
+    private int home(long phone) {
+        long h = phone * 0x9E3779B97F4A7C15L;
+        int hash = (int) (h ^ (h >>> 32));
+        return (int) (((hash & 0xFFFFFFFFL) * slots.length) >>> 32);
+    }
+
+    private int next(int slot) {
+        return slot + 1 == slots.length ? 0 : slot + 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = slots;
+        slots = new long[capacity];
+        for (long entry : old) {
+            if (entry != 0) {
+                int slot = home((entry >>> ROW_BITS) - 1);
+                while (slots[slot] != 0) {
+                    slot = next(slot);
+                }
+                slots[slot] = entry;
+            }
+        }
+    }
+
+    private static int capacityFor(int size) {
+        return Math.max(16, (int) Math.ceil(size / GROWN_LOAD));
+    }
+}
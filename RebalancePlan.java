@@ -0,0 +1,76 @@
+package Service;
+
+import java.util.*;
+
+/**
+ * A set of appointment moves that evens out doctors' loads, produced by
+ * CppIntegrationService.planLoadBalance() for preview and handed back to
+ * applyLoadBalance() to carry out. Nothing changes until it is applied.
+ */
+public class RebalancePlan {
+
+    /** One appointment moving to another doctor at the same date and time. */
+    public static final class Move {
+        private final int appointmentId;
+        private final int patientId;
+        private final int fromDoctorId;
+        private final int toDoctorId;
+        private final int epochDay;
+        private final int startMinute;
+        private final int durationMinutes;
+
+        Move(int appointmentId, int patientId, int fromDoctorId, int toDoctorId,
+             int epochDay, int startMinute, int durationMinutes) {
+            this.appointmentId = appointmentId;
+            this.patientId = patientId;
+            this.fromDoctorId = fromDoctorId;
+            this.toDoctorId = toDoctorId;
+            this.epochDay = epochDay;
+            this.startMinute = startMinute;
+            this.durationMinutes = durationMinutes;
+        }
+
+        public int getAppointmentId() { return appointmentId; }
+        public int getPatientId() { return patientId; }
+        public int getFromDoctorId() { return fromDoctorId; }
+        public int getToDoctorId() { return toDoctorId; }
+        public int getEpochDay() { return epochDay; }
+        public int getStartMinute() { return startMinute; }
+        public int getDurationMinutes() { return durationMinutes; }
+
+        @Override
+        public String toString() {
+            return "Appointment " + appointmentId + " (" + SlotAvailability.formatDate(epochDay) + " "
+                    + SlotAvailability.formatTime(startMinute) + "): Doctor " + fromDoctorId
+                    + " -> Doctor " + toDoctorId;
+        }
+    }
+
+    private final List<Move> moves;
+    private final Map<Integer, Integer> loadsBefore;
+    private final Map<Integer, Integer> loadsAfter;
+
+    RebalancePlan(List<Move> moves, Map<Integer, Integer> loadsBefore, Map<Integer, Integer> loadsAfter) {
+        this.moves = Collections.unmodifiableList(moves);
+        this.loadsBefore = Collections.unmodifiableMap(loadsBefore);
+        this.loadsAfter = Collections.unmodifiableMap(loadsAfter);
+    }
+
+    public List<Move> getMoves() {
+        return moves;
+    }
+
+    public boolean isEmpty() {
+        return moves.isEmpty();
+    }
+
+    /** Open load per doctor id when the plan was made. */
+    public Map<Integer, Integer> getLoadsBefore() {
+        return loadsBefore;
+    }
+
+    /** Open load per doctor id once the plan is applied. */
+    public Map<Integer, Integer> getLoadsAfter() {
+        return loadsAfter;
+    }
+}
@@ -5,6 +5,12 @@
 #include <queue>
 #include <sstream>
 #include <map>
+#include <unordered_set>
+#include <cstdint>
+#ifdef _WIN32
+#include <io.h>
+#include <fcntl.h>
+#endif
 using namespace std;
 
 // ===== LEVEL-1 DSA: LINKED LIST =====
@@ -22,6 +28,20 @@ class AppointmentLinkedList {
 private:
     AppointmentNode* head;
     int nextId;
+    unordered_set<string> bookedSlots; // doctorId|date|timeSlot of SCHEDULED appointments
+
+    static string slotKey(int doctorId, const string& date, const string& timeSlot) {
+        return to_string(doctorId) + "|" + date + "|" + timeSlot;
+    }
+
+    static void writeRecord(ostream& out, const AppointmentNode* node) {
+        out << node->appointmentId << ","
+            << node->patientId << ","
+            << node->doctorId << ","
+            << node->date << ","
+            << node->timeSlot << ","
+            << node->status << "\n";
+    }
 
 public:
     AppointmentLinkedList() {
@@ -39,35 +59,30 @@ public:
         newNode->status = "SCHEDULED";
         newNode->next = head;
         head = newNode;
+        bookedSlots.insert(slotKey(doctorId, date, timeSlot));
     }
 
     void saveToFile(string filename) {
         ofstream outFile(filename);
-        AppointmentNode* current = head;
-        while (current) {
-            outFile << current->appointmentId << ","
-                << current->patientId << ","
-                << current->doctorId << ","
-                << current->date << ","
-                << current->timeSlot << ","
-                << current->status << "\n";
-            current = current->next;
-        }
+        writeAll(outFile);
         outFile.close();
     }
 
-    bool isSlotAvailable(int doctorId, string date, string timeSlot) {
-        AppointmentNode* current = head;
-        while (current) {
-            if (current->doctorId == doctorId &&
-                current->date == date &&
-                current->timeSlot == timeSlot &&
-                current->status == "SCHEDULED") {
-                return false;
-            }
-            current = current->next;
+    void writeAll(ostream& out) {
+        for (AppointmentNode* current = head; current; current = current->next) {
+            writeRecord(out, current);
+        }
+    }
+
+    // Appends the newest appointment; loadFromFile reads it back like a saved one
+    void appendLatest(ostream& out) {
+        if (head) {
+            writeRecord(out, head);
         }
-        return true;
+    }
+
+    bool isSlotAvailable(int doctorId, string date, string timeSlot) {
+        return bookedSlots.count(slotKey(doctorId, date, timeSlot)) == 0;
     }
 
     void loadFromFile(string filename) {
@@ -89,6 +104,9 @@ public:
 
             newNode->next = head;
             head = newNode;
+            if (newNode->status == "SCHEDULED") {
+                bookedSlots.insert(slotKey(newNode->doctorId, newNode->date, newNode->timeSlot));
+            }
 
             if (newNode->appointmentId >= nextId) {
                 nextId = newNode->appointmentId + 1;
@@ -169,79 +187,160 @@ public:
 TimeSlotGraph timeGraph;
 
 // ===== OPERATIONS =====
-void scheduleAppointment() {
-    ifstream inFile("../DataFiles/schedule_input.txt");
+// Each operation reads its input and writes its reply through streams, so the
+// same code serves the per-command file handshake and the persistent engine.
+bool scheduleAppointment(istream& in, ostream& out) {
     string line;
-    getline(inFile, line);
-    inFile.close();
+    getline(in, line);
 
     stringstream ss(line);
     string temp;
     int patientId, doctorId;
     string date, timeSlot;
 
-    getline(ss, temp, ','); patientId = stoi(temp);
-    getline(ss, temp, ','); doctorId = stoi(temp);
+    try {
+        getline(ss, temp, ','); patientId = stoi(temp);
+        getline(ss, temp, ','); doctorId = stoi(temp);
+    }
+    catch (const exception&) {
+        out << "ERROR: Invalid patient or doctor id\n";
+        return false;
+    }
     getline(ss, date, ',');
     getline(ss, timeSlot, ',');
 
-    ofstream outFile("../DataFiles/schedule_output.txt");
-
     if (appointmentList.isSlotAvailable(doctorId, date, timeSlot)) {
         appointmentList.addAppointment(patientId, doctorId, date, timeSlot);
         timeGraph.markSlotBooked(date, timeSlot, doctorId);
 
-        outFile << "SUCCESS\n";
-        outFile << "Appointment scheduled for " << date << " at " << timeSlot << "\n";
-    }
-    else {
-        outFile << "ERROR: Time slot not available\n";
+        out << "SUCCESS\n";
+        out << "Appointment scheduled for " << date << " at " << timeSlot << "\n";
+        return true;
     }
-    outFile.close();
-
-    appointmentList.saveToFile("../DataFiles/appointments.txt");
+    out << "ERROR: Time slot not available\n";
+    return false;
 }
 
-void getAvailableSlots() {
-    ifstream inFile("../DataFiles/slots_query.txt");
+void getAvailableSlots(istream& in, ostream& out) {
     string date;
-    int doctorId;
-    inFile >> doctorId;
-    inFile.ignore();
-    getline(inFile, date);
-    inFile.close();
+    int doctorId = 0;
+    in >> doctorId;
+    in.ignore();
+    getline(in, date);
 
     vector<string> availableSlots = timeGraph.findAvailableSlots(date, doctorId);
 
-    ofstream outFile("../DataFiles/available_slots.txt");
-    outFile << "AVAILABLE_SLOTS\n";
+    out << "AVAILABLE_SLOTS\n";
     for (const string& slot : availableSlots) {
-        outFile << slot << "\n";
+        out << slot << "\n";
     }
-    outFile.close();
-}
-
-void getAllAppointments() {
-    appointmentList.saveToFile("../DataFiles/all_appointments.txt");
 }
 
-int main() {
-    appointmentList.loadFromFile("../DataFiles/appointments.txt");
-
+// ===== FILE HANDSHAKE (one command per process) =====
+void runCommandFile() {
     ifstream commandFile("../DataFiles/schedule_command.txt");
     string command;
     getline(commandFile, command);
     commandFile.close();
 
     if (command == "SCHEDULE_APPOINTMENT") {
-        scheduleAppointment();
+        ifstream inFile("../DataFiles/schedule_input.txt");
+        ofstream outFile("../DataFiles/schedule_output.txt");
+        scheduleAppointment(inFile, outFile);
+        outFile.close();
+        appointmentList.saveToFile("../DataFiles/appointments.txt");
     }
     else if (command == "GET_AVAILABLE_SLOTS") {
-        getAvailableSlots();
+        ifstream inFile("../DataFiles/slots_query.txt");
+        ofstream outFile("../DataFiles/available_slots.txt");
+        getAvailableSlots(inFile, outFile);
     }
     else if (command == "GET_ALL_APPOINTMENTS") {
-        getAllAppointments();
+        appointmentList.saveToFile("../DataFiles/all_appointments.txt");
     }
+}
+
+// ===== PERSISTENT ENGINE (--serve) =====
+// Frames on stdin and stdout are a 4-byte big-endian length followed by that
+// many bytes. A request is the command name, a newline, then the same text
+// the command would have read from its input file; the reply is the text it
+// would have written to its output file. Replies come back in request order,
+// so a client may pipeline many requests before reading any reply.
+// Bookings are appended to appointments.txt instead of rewriting it, and
+// replies and appends are flushed once the pending requests are drained.
+bool readFrame(istream& in, string& payload) {
+    unsigned char header[4];
+    if (!in.read(reinterpret_cast<char*>(header), 4)) {
+        return false;
+    }
+    uint32_t length = (uint32_t(header[0]) << 24) | (uint32_t(header[1]) << 16)
+        | (uint32_t(header[2]) << 8) | uint32_t(header[3]);
+    payload.resize(length);
+    return length == 0 || static_cast<bool>(in.read(&payload[0], length));
+}
 
+void writeFrame(ostream& out, const string& payload) {
+    uint32_t length = static_cast<uint32_t>(payload.size());
+    char header[4] = {
+        char(length >> 24), char(length >> 16), char(length >> 8), char(length)
+    };
+    out.write(header, 4);
+    out.write(payload.data(), payload.size());
+}
+
+void serve() {
+#ifdef _WIN32
+    // Text mode would turn \n into \r\n and stop reading at a 0x1A byte
+    _setmode(_fileno(stdin), _O_BINARY);
+    _setmode(_fileno(stdout), _O_BINARY);
+#endif
+    ios::sync_with_stdio(false);
+    ofstream journal("../DataFiles/appointments.txt", ios::app);
+
+    string request;
+    while (readFrame(cin, request)) {
+        size_t newline = request.find('\n');
+        string command = request.substr(0, newline);
+        stringstream in(newline == string::npos ? string() : request.substr(newline + 1));
+        stringstream out;
+
+        if (command == "SCHEDULE_APPOINTMENT") {
+            if (scheduleAppointment(in, out)) {
+                appointmentList.appendLatest(journal);
+            }
+        }
+        else if (command == "GET_AVAILABLE_SLOTS") {
+            getAvailableSlots(in, out);
+        }
+        else if (command == "GET_ALL_APPOINTMENTS") {
+            appointmentList.writeAll(out);
+        }
+        else if (command == "QUIT") {
+            writeFrame(cout, "BYE\n");
+            break;
+        }
+        else {
+            out << "ERROR: Unknown command " << command << "\n";
+        }
+        writeFrame(cout, out.str());
+
+        if (cin.rdbuf()->in_avail() <= 0) {
+            journal.flush();
+            cout.flush();
+        }
+    }
+    journal.flush();
+    cout.flush();
+}
+
+int main(int argc, char* argv[]) {
+    appointmentList.loadFromFile("../DataFiles/appointments.txt");
+
+    if (argc > 1 && string(argv[1]) == "--serve") {
+        serve();
+    }
+    else {
+        runCommandFile();
+    }
     return 0;
 }
\ No newline at end of file
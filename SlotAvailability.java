@@ -0,0 +1,340 @@
+package Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+/**
+ * Booked-slot bitmaps, one per owner (a doctor or a patient) and day.
+ *
+ * A day is split into SLOTS_PER_DAY slots of SLOT_MINUTES; slot i of an
+ * owner's day is bit i of a WORDS-long bitmap. Checking, booking and
+ * releasing a run of slots, and listing a day's free slots, are a few
+ * mask operations on those words.
+ *
+ * Bitmaps live in open-addressing tables keyed by (ownerId, epochDay).
+ * Owners are spread over shards with their own lock, so bookings for
+ * different owners rarely touch the same lock.
+ */
+class SlotAvailability {
+
+    static final int SLOT_MINUTES = 15;
+    static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+
+    // Last day epochDay() accepts
+    static final int LAST_DAY = (int) LocalDate.of(2999, 12, 31).toEpochDay();
+
+    private static final int WORDS = (SLOTS_PER_DAY + 63) / 64;
+    private static final int SHARDS = 16;
+
+    // Clinic hours, as in the C++ scheduler: 09:00-12:00 and 14:00-17:00
+    private static final long[] WORKING_HOURS = new long[WORDS];
+
+    static {
+        setRange(WORKING_HOURS, 0, 9 * 60 / SLOT_MINUTES, 12 * 60 / SLOT_MINUTES);
+        setRange(WORKING_HOURS, 0, 14 * 60 / SLOT_MINUTES, 17 * 60 / SLOT_MINUTES);
+    }
+
+    private final Shard[] shards = new Shard[SHARDS];
+
+    SlotAvailability() {
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    // ===== QUERIES AND UPDATES =====
+
+    boolean isFree(int ownerId, int epochDay, int firstSlot, int slotCount) {
+        checkRange(firstSlot, slotCount);
+        return shard(ownerId).isFree(key(ownerId, epochDay), firstSlot, firstSlot + slotCount);
+    }
+
+    /** Books the slots if all of them are free; returns false, booking nothing, otherwise. */
+    boolean tryBook(int ownerId, int epochDay, int firstSlot, int slotCount) {
+        checkRange(firstSlot, slotCount);
+        return shard(ownerId).tryBook(key(ownerId, epochDay), firstSlot, firstSlot + slotCount);
+    }
+
+    /** Marks the slots booked whether or not they already were (used when replaying stored bookings). */
+    void book(int ownerId, int epochDay, int firstSlot, int slotCount) {
+        checkRange(firstSlot, slotCount);
+        shard(ownerId).book(key(ownerId, epochDay), firstSlot, firstSlot + slotCount);
+    }
+
+    void release(int ownerId, int epochDay, int firstSlot, int slotCount) {
+        checkRange(firstSlot, slotCount);
+        shard(ownerId).release(key(ownerId, epochDay), firstSlot, firstSlot + slotCount);
+    }
+
+    /** Free slot indices of the owner's day within clinic hours, ascending. */
+    int[] freeSlots(int ownerId, int epochDay) {
+        long[] free = shard(ownerId).booked(key(ownerId, epochDay));
+        int count = 0;
+        for (int w = 0; w < WORDS; w++) {
+            free[w] = ~free[w] & WORKING_HOURS[w];
+            count += Long.bitCount(free[w]);
+        }
+
+        int[] slots = new int[count];
+        int n = 0;
+        for (int w = 0; w < WORDS; w++) {
+            for (long bits = free[w]; bits != 0; bits &= bits - 1) {
+                slots[n++] = w * 64 + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return slots;
+    }
+
+    void clear() {
+        for (Shard shard : shards) {
+            shard.clear();
+        }
+    }
+
+    // ===== DATE AND TIME PARSING =====
+
+    /** Parses YYYY-MM-DD (years 1900-2999) into days since 1970-01-01. */
+    static int epochDay(String date) {
+        LocalDate parsed;
+        try {
+            parsed = LocalDate.parse(date.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Date must be YYYY-MM-DD");
+        }
+        if (parsed.getYear() < 1900 || parsed.getYear() > 2999) {
+            throw new IllegalArgumentException("Year must be between 1900 and 2999");
+        }
+        return (int) parsed.toEpochDay();
+    }
+
+    static String formatDate(int epochDay) {
+        return LocalDate.ofEpochDay(epochDay).toString();
+    }
+
+    /** Parses HH:MM into minutes after midnight. */
+    static int minuteOfDay(String time) {
+        String t = time.trim();
+        int colon = t.indexOf(':');
+        if (colon < 1 || colon > 2 || t.length() != colon + 3) {
+            throw new IllegalArgumentException("Time must be HH:MM");
+        }
+        int hours = digits(t, 0, colon);
+        int minutes = digits(t, colon + 1, t.length());
+        if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59) {
+            throw new IllegalArgumentException("Time must be HH:MM");
+        }
+        return hours * 60 + minutes;
+    }
+
+    static String formatTime(int minuteOfDay) {
+        int hours = minuteOfDay / 60;
+        int minutes = minuteOfDay % 60;
+        return (hours < 10 ? "0" : "") + hours + (minutes < 10 ? ":0" : ":") + minutes;
+    }
+
+    /** Start of "HH:MM" or of a "HH:MM-HH:MM" range, in minutes after midnight. */
+    static int startMinute(String time) {
+        int dash = time.indexOf('-');
+        return minuteOfDay(dash < 0 ? time : time.substring(0, dash));
+    }
+
+    /** Length of a "HH:MM-HH:MM" range in minutes; 0 for a single "HH:MM". */
+    static int durationMinutes(String time) {
+        int dash = time.indexOf('-');
+        if (dash < 0) {
+            minuteOfDay(time);
+            return 0;
+        }
+        int start = minuteOfDay(time.substring(0, dash));
+        int end = minuteOfDay(time.substring(dash + 1));
+        if (end <= start) {
+            throw new IllegalArgumentException("Time range must end after it starts");
+        }
+        return end - start;
+    }
+
+    static int firstSlot(int startMinute) {
+        return startMinute / SLOT_MINUTES;
+    }
+
+    /** Slots covered: one for a single time, every slot the range touches otherwise. */
+    static int slotCount(int startMinute, int durationMinutes) {
+        if (durationMinutes == 0) {
+            return 1;
+        }
+        return (startMinute + durationMinutes + SLOT_MINUTES - 1) / SLOT_MINUTES - startMinute / SLOT_MINUTES;
+    }
+
+    private static int digits(String s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // ===== INTERNALS =====
+
+    private Shard shard(int ownerId) {
+        return shards[mix(ownerId) & (SHARDS - 1)];
+    }
+
+    private static long key(int ownerId, int epochDay) {
+        return ((long) ownerId << 32) | (epochDay & 0xFFFFFFFFL);
+    }
+
+    private static void checkRange(int firstSlot, int slotCount) {
+        if (firstSlot < 0 || slotCount < 1 || firstSlot + slotCount > SLOTS_PER_DAY) {
+            throw new IllegalArgumentException("Slots " + firstSlot + "+" + slotCount + " are outside the day");
+        }
+    }
+
+    // Bits [from, to) of word w
+    private static long rangeMask(int w, int from, int to) {
+        int lo = Math.max(from, w * 64);
+        int hi = Math.min(to, w * 64 + 64);
+        if (lo >= hi) {
+            return 0;
+        }
+        long bits = hi - lo == 64 ? -1L : (1L << (hi - lo)) - 1;
+        return bits << (lo - w * 64);
+    }
+
+    private static void setRange(long[] words, int base, int from, int to) {
+        for (int w = 0; w < WORDS; w++) {
+            words[base + w] |= rangeMask(w, from, to);
+        }
+    }
+
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /** One lock's worth of owner days: keys and their bitmaps side by side. */
+    private static final class Shard {
+
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] keys = newKeys(64);
+        private long[] words = new long[64 * WORDS];
+        private int size;
+
+        synchronized boolean isFree(long key, int from, int to) {
+            int entry = find(key);
+            if (entry < 0) {
+                return true;
+            }
+            int base = entry * WORDS;
+            for (int w = 0; w < WORDS; w++) {
+                if ((words[base + w] & rangeMask(w, from, to)) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        synchronized boolean tryBook(long key, int from, int to) {
+            if (!isFree(key, from, to)) {
+                return false;
+            }
+            book(key, from, to);
+            return true;
+        }
+
+        synchronized void book(long key, int from, int to) {
+            int base = insert(key);
+            setRange(words, base, from, to);
+        }
+
+        synchronized void release(long key, int from, int to) {
+            int entry = find(key);
+            if (entry >= 0) {
+                int base = entry * WORDS;
+                for (int w = 0; w < WORDS; w++) {
+                    words[base + w] &= ~rangeMask(w, from, to);
+                }
+            }
+        }
+
+        synchronized long[] booked(long key) {
+            int entry = find(key);
+            return entry < 0 ? new long[WORDS] : Arrays.copyOfRange(words, entry * WORDS, entry * WORDS + WORDS);
+        }
+
+        synchronized void clear() {
+            keys = newKeys(64);
+            words = new long[64 * WORDS];
+            size = 0;
+        }
+
+        private int find(long key) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        /**
+         * Adds the key if missing and returns the index of its first word.
+         * May replace the words array, so callers must read the field only
+         * after the call, not as an argument alongside it.
+         */
+        private int insert(long key) {
+            int entry = find(key);
+            if (entry >= 0) {
+                return entry * WORDS;
+            }
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            size++;
+            return slot * WORDS;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            long[] oldWords = words;
+            keys = newKeys(oldKeys.length * 2);
+            words = new long[keys.length * WORDS];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = hash(oldKeys[i]) & mask;
+                    while (keys[slot] != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    System.arraycopy(oldWords, i * WORDS, words, slot * WORDS, WORDS);
+                }
+            }
+        }
+
+        private static long[] newKeys(int capacity) {
+            long[] keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package model;
+
+import java.util.*;
+
+/**
+ * Dictionary encoding for low-cardinality strings (diseases, specializations).
+ * Each distinct value is stored once and referred to by a small int code.
+ */
+public class StringDictionary {
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    /* ==============================
+       ENCODING
+       ============================== */
+
+    /** Returns the code for the value, assigning the next code if it is new. */
+    public synchronized int encode(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    /** Returns the code for the value, or -1 if it has never been encoded. */
+    public synchronized int codeOf(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    public synchronized String decode(int code) {
+        return values.get(code);
+    }
+
+    public synchronized int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,87 @@
+package Service;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * A fixed set of locks that ids are hashed onto, so unrelated ids rarely
+ * share a lock while memory stays bounded.
+ *
+ * Callers that need two ids (a doctor and a patient) take both stripes
+ * through withLocks, which always acquires the lower stripe first; with
+ * every caller using that order no two bookings can wait on each other.
+ */
+class StripedLocks {
+
+    // Keeps doctor 7 and patient 7 on different stripes
+    static final int DOCTOR = 0x5bd1e995;
+    static final int PATIENT = 0x27d4eb2f;
+
+    private final ReentrantLock[] stripes;
+
+    StripedLocks(int count) {
+        int size = Integer.highestOneBit(Math.max(2, count) * 2 - 1);
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    int stripeOf(int kind, int id) {
+        int h = (id ^ kind) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+
+    /** Runs the action holding stripes a and b, taken in ascending order. */
+    <T> T withLocks(int a, int b, Supplier<T> action) {
+        ReentrantLock first = stripes[Math.min(a, b)];
+        ReentrantLock second = stripes[Math.max(a, b)];
+        first.lock();
+        try {
+            if (second != first) {
+                second.lock();
+            }
+            try {
+                return action.get();
+            } finally {
+                if (second != first) {
+                    second.unlock();
+                }
+            }
+        } finally {
+            first.unlock();
+        }
+    }
+
+    /** Runs the action holding each listed stripe once, taken in ascending order. */
+    <T> T withLocks(int[] stripeIds, Supplier<T> action) {
+        int[] order = Arrays.stream(stripeIds).distinct().sorted().toArray();
+        int locked = 0;
+        try {
+            for (; locked < order.length; locked++) {
+                stripes[order[locked]].lock();
+            }
+            return action.get();
+        } finally {
+            while (locked > 0) {
+                stripes[order[--locked]].unlock();
+            }
+        }
+    }
+
+    /** Runs the action holding every stripe, taken in ascending order like withLocks. */
+    <T> T withAllLocks(Supplier<T> action) {
+        int locked = 0;
+        try {
+            for (; locked < stripes.length; locked++) {
+                stripes[locked].lock();
+            }
+            return action.get();
+        } finally {
+            while (locked > 0) {
+                stripes[--locked].unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Assigns a triage priority from a patient's disease text and age.
+ *
+ * The rules come from a dictionary file of "keyword,LEVEL" lines plus
+ * "age>N,LEVEL" and "age<N,LEVEL" lines; LEVEL is CRITICAL, HIGH or
+ * NORMAL and the most urgent matching rule wins. All keywords are
+ * compiled into one Aho-Corasick automaton, so a disease is matched
+ * against every keyword in a single case-insensitive pass over its
+ * characters instead of one contains() call per keyword.
+ *
+ * Instances are immutable; reloading the dictionary builds a new one.
+ */
+class TriageClassifier {
+
+    static final int CRITICAL = 1;
+    static final int HIGH = 2;
+    static final int NORMAL = 3;
+
+    private static final String[] LEVEL_NAMES = {"", "CRITICAL", "HIGH", "NORMAL"};
+
+    static final String DEFAULT_DICTIONARY =
+            "# Triage dictionary: keyword,LEVEL or age>N,LEVEL / age<N,LEVEL\n"
+            + "# LEVEL is CRITICAL, HIGH or NORMAL; the most urgent match wins.\n"
+            + "# Keywords match anywhere in the disease, ignoring case.\n"
+            + "critical,CRITICAL\n"
+            + "emergency,CRITICAL\n"
+            + "heart,HIGH\n"
+            + "stroke,HIGH\n"
+            + "cancer,HIGH\n"
+            + "age>60,HIGH\n";
+
+    // DFA over the keywords' alphabet: next[state * alphabetSize + symbol]
+    private final int[] next;
+    private final int alphabetSize;
+    private final int[] asciiSymbols = new int[128];           // 0 = not in any keyword
+    private final Map<Character, Integer> otherSymbols = new HashMap<>();
+    private final int[] matchLevel;                            // most urgent keyword ending here, NORMAL if none
+
+    // Age rules: older than olderThan[i] or younger than youngerThan[i] gives the level
+    private final int[] olderThan;
+    private final int[] olderLevel;
+    private final int[] youngerThan;
+    private final int[] youngerLevel;
+
+    private TriageClassifier(List<String> keywords, List<Integer> keywordLevels,
+                             int[] olderThan, int[] olderLevel, int[] youngerThan, int[] youngerLevel) {
+        this.olderThan = olderThan;
+        this.olderLevel = olderLevel;
+        this.youngerThan = youngerThan;
+        this.youngerLevel = youngerLevel;
+
+        int symbols = 1;
+        int states = 1;
+        for (String keyword : keywords) {
+            states += keyword.length();
+            for (char c : keyword.toCharArray()) {
+                if (symbolOf(c) == 0) {
+                    if (c < 128) {
+                        asciiSymbols[c] = symbols++;
+                    } else {
+                        otherSymbols.put(c, symbols++);
+                    }
+                }
+            }
+        }
+        alphabetSize = symbols;
+
+        // Trie; 0 in the goto table means "no edge" for now
+        int[] trie = new int[states * alphabetSize];
+        int[] level = new int[states];
+        Arrays.fill(level, NORMAL);
+        int used = 1;
+        for (int k = 0; k < keywords.size(); k++) {
+            int state = 0;
+            for (char c : keywords.get(k).toCharArray()) {
+                int edge = state * alphabetSize + symbolOf(c);
+                if (trie[edge] == 0) {
+                    trie[edge] = used++;
+                }
+                state = trie[edge];
+            }
+            level[state] = Math.min(level[state], keywordLevels.get(k));
+        }
+
+        // Breadth-first: resolve failure links into a full DFA and inherit matches along them
+        int[] fail = new int[used];
+        int[] queue = new int[used];
+        int head = 0;
+        int tail = 0;
+        for (int s = 0; s < alphabetSize; s++) {
+            int child = trie[s];
+            if (child != 0) {
+                fail[child] = 0;
+                queue[tail++] = child;
+            }
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            level[state] = Math.min(level[state], level[fail[state]]);
+            for (int s = 0; s < alphabetSize; s++) {
+                int edge = state * alphabetSize + s;
+                int child = trie[edge];
+                if (child != 0) {
+                    fail[child] = trie[fail[state] * alphabetSize + s];
+                    queue[tail++] = child;
+                } else {
+                    trie[edge] = trie[fail[state] * alphabetSize + s];
+                }
+            }
+        }
+        this.next = Arrays.copyOf(trie, used * alphabetSize);
+        this.matchLevel = Arrays.copyOf(level, used);
+    }
+
+    // ===== LOADING =====
+
+    /** Reads the dictionary file, writing the default dictionary first if there is none. */
+    static TriageClassifier load(Path dictionary) throws IOException {
+        if (!Files.exists(dictionary)) {
+            Files.write(dictionary, DEFAULT_DICTIONARY.getBytes(StandardCharsets.UTF_8));
+        }
+        return parse(Files.readAllLines(dictionary, StandardCharsets.UTF_8));
+    }
+
+    /** Builds a classifier from dictionary lines; blank lines, # comments and bad lines are skipped. */
+    static TriageClassifier parse(List<String> lines) {
+        List<String> keywords = new ArrayList<>();
+        List<Integer> levels = new ArrayList<>();
+        List<int[]> older = new ArrayList<>();
+        List<int[]> younger = new ArrayList<>();
+
+        for (String line : lines) {
+            String[] fields = CsvCodec.split(line, 2);
+            if (fields == null || fields[0].isEmpty() || fields[0].startsWith("#")) {
+                continue;
+            }
+            int level = levelOf(fields[1]);
+            String rule = fields[0].toLowerCase(Locale.ROOT);
+            if (level == 0) {
+                continue;
+            }
+            if (rule.startsWith("age>") || rule.startsWith("age<")) {
+                try {
+                    int[] ageRule = {Integer.parseInt(rule.substring(4).trim()), level};
+                    (rule.charAt(3) == '>' ? older : younger).add(ageRule);
+                } catch (NumberFormatException e) {
+                    // skip malformed age rule
+                }
+            } else {
+                keywords.add(rule);
+                levels.add(level);
+            }
+        }
+        return new TriageClassifier(keywords, levels,
+                column(older, 0), column(older, 1), column(younger, 0), column(younger, 1));
+    }
+
+    // ===== CLASSIFYING =====
+
+    /** The most urgent level any keyword found in the disease gives; NORMAL if none. */
+    int diseaseLevel(String disease) {
+        int state = 0;
+        int level = NORMAL;
+        for (int i = 0, n = disease.length(); i < n && level > CRITICAL; i++) {
+            state = next[state * alphabetSize + symbolOf(Character.toLowerCase(disease.charAt(i)))];
+            level = Math.min(level, matchLevel[state]);
+        }
+        return level;
+    }
+
+    /** Combines a disease level from diseaseLevel with the age rules. */
+    int classify(int diseaseLevel, int age) {
+        int level = diseaseLevel;
+        for (int i = 0; i < olderThan.length; i++) {
+            if (age > olderThan[i]) {
+                level = Math.min(level, olderLevel[i]);
+            }
+        }
+        for (int i = 0; i < youngerThan.length; i++) {
+            if (age < youngerThan[i]) {
+                level = Math.min(level, youngerLevel[i]);
+            }
+        }
+        return level;
+    }
+
+    int classify(String disease, int age) {
+        return classify(diseaseLevel(disease), age);
+    }
+
+    static String levelName(int level) {
+        return level >= CRITICAL && level <= NORMAL ? LEVEL_NAMES[level] : LEVEL_NAMES[NORMAL];
+    }
+
+    /** CRITICAL, HIGH or NORMAL (any case) to its level; 0 if it is none of them. */
+    static int levelOf(String name) {
+        for (int level = CRITICAL; level <= NORMAL; level++) {
+            if (LEVEL_NAMES[level].equalsIgnoreCase(name.trim())) {
+                return level;
+            }
+        }
+        return 0;
+    }
+
+    // ===== INTERNALS =====
+    private int symbolOf(char c) {
+        if (c < 128) {
+            return asciiSymbols[c];
+        }
+        Integer symbol = otherSymbols.get(c);
+        return symbol == null ? 0 : symbol;
+    }
+
+    private static int[] column(List<int[]> rules, int index) {
+        int[] values = new int[rules.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = rules.get(i)[index];
+        }
+        return values;
+    }
+}
@@ -0,0 +1,217 @@
+package Service;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Waiting-room queue of patient ids, most urgent triage level first and
+ * earliest arrival first within a level.
+ *
+ * The queue is an indexed binary heap: each entry remembers its heap
+ * position, so removing a patient or changing their level re-sifts that
+ * one entry in O(log n). Enqueueing does not take the heap lock: the id is
+ * claimed in a concurrent map and the entry is parked in a lock-free
+ * inbox, which the next heap operation drains. Arrival order is taken
+ * when the patient is enqueued, not when the inbox is drained, so desks
+ * adding patients never wait on a doctor calling the next one.
+ */
+class TriageQueue {
+
+    /** One waiting patient; heapIndex is -1 while the entry is still in the inbox. */
+    private static final class Entry {
+        final int patientId;
+        final long arrival;
+        int priority;
+        int heapIndex = -1;  // guarded by the queue's lock
+
+        Entry(int patientId, int priority, long arrival) {
+            this.patientId = patientId;
+            this.priority = priority;
+            this.arrival = arrival;
+        }
+    }
+
+    private final Map<Integer, Entry> waiting = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> inbox = new ConcurrentLinkedQueue<>();
+    private final AtomicLong arrivals = new AtomicLong();
+
+    private Entry[] heap = new Entry[64];
+    private int size;
+
+    // ===== FRONT END =====
+
+    /** Queues the patient at the level; false if they are already waiting. */
+    boolean enqueue(int patientId, int priority) {
+        Entry entry = new Entry(patientId, priority, arrivals.getAndIncrement());
+        if (waiting.putIfAbsent(patientId, entry) != null) {
+            return false;
+        }
+        inbox.add(entry);
+        return true;
+    }
+
+    boolean contains(int patientId) {
+        return waiting.containsKey(patientId);
+    }
+
+    /** Number of waiting patients, including ones not yet drained into the heap. */
+    int size() {
+        return waiting.size();
+    }
+
+    // ===== HEAP OPERATIONS =====
+
+    /** Removes and returns the next patient to call, or -1 if nobody is waiting. */
+    synchronized int poll() {
+        drain();
+        if (size == 0) {
+            return -1;
+        }
+        Entry first = heap[0];
+        removeAt(0);
+        waiting.remove(first.patientId);
+        return first.patientId;
+    }
+
+    /** The next patient to call without removing them, or -1 if nobody is waiting. */
+    synchronized int peek() {
+        drain();
+        return size == 0 ? -1 : heap[0].patientId;
+    }
+
+    /** Moves a waiting patient to a new level, keeping their arrival; false if not waiting. */
+    synchronized boolean update(int patientId, int priority) {
+        drain();
+        Entry entry = waiting.get(patientId);
+        if (entry == null) {
+            return false;
+        }
+        int old = entry.priority;
+        entry.priority = priority;
+        if (entry.heapIndex < 0) {
+            return true; // still being enqueued; the drain places it by the new level
+        }
+        if (priority < old) {
+            siftUp(entry.heapIndex);
+        } else {
+            siftDown(entry.heapIndex);
+        }
+        return true;
+    }
+
+    /** Takes a patient out of the queue; false if not waiting. */
+    synchronized boolean remove(int patientId) {
+        drain();
+        Entry entry = waiting.remove(patientId);
+        if (entry == null) {
+            return false;
+        }
+        if (entry.heapIndex >= 0) {
+            removeAt(entry.heapIndex);
+        }
+        return true;
+    }
+
+    /** Level of a waiting patient, or 0 if not waiting. */
+    int priorityOf(int patientId) {
+        Entry entry = waiting.get(patientId);
+        if (entry == null) {
+            return 0;
+        }
+        synchronized (this) {
+            return entry.priority;
+        }
+    }
+
+    /** Waiting patient ids in the order they would be called. */
+    synchronized int[] snapshot() {
+        drain();
+        Entry[] ordered = Arrays.copyOf(heap, size);
+        Arrays.sort(ordered, TriageQueue::compare);
+        int[] ids = new int[ordered.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = ordered[i].patientId;
+        }
+        return ids;
+    }
+
+    synchronized void clear() {
+        waiting.clear();
+        inbox.clear();
+        Arrays.fill(heap, 0, size, null);
+        size = 0;
+    }
+
+    // ===== HEAP ORDER =====
+
+    // Moves enqueued entries into the heap; ones removed while in the inbox are dropped
+    private void drain() {
+        Entry entry;
+        while ((entry = inbox.poll()) != null) {
+            if (waiting.get(entry.patientId) != entry) {
+                continue;
+            }
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            heap[size] = entry;
+            entry.heapIndex = size;
+            siftUp(size++);
+        }
+    }
+
+    private void removeAt(int i) {
+        Entry last = heap[--size];
+        heap[size] = null;
+        if (i < size) {
+            place(last, i);
+            siftDown(i);
+            siftUp(last.heapIndex);
+        }
+    }
+
+    private void siftUp(int i) {
+        Entry entry = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (compare(heap[parent], entry) <= 0) {
+                break;
+            }
+            place(heap[parent], i);
+            i = parent;
+        }
+        place(entry, i);
+    }
+
+    private void siftDown(int i) {
+        Entry entry = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && compare(heap[child + 1], heap[child]) < 0) {
+                child++;
+            }
+            if (compare(entry, heap[child]) <= 0) {
+                break;
+            }
+            place(heap[child], i);
+            i = child;
+        }
+        place(entry, i);
+    }
+
+    private void place(Entry entry, int i) {
+        heap[i] = entry;
+        entry.heapIndex = i;
+    }
+
+    private static int compare(Entry a, Entry b) {
+        int byPriority = Integer.compare(a.priority, b.priority);
+        return byPriority != 0 ? byPriority : Long.compare(a.arrival, b.arrival);
+    }
+}
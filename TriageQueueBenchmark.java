@@ -0,0 +1,144 @@
+package Service;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * TriageQueue with 100,000 patients waiting.
+ *
+ * Steady state: the queue is filled to the target size, then each kind of
+ * operation is timed over as many calls as there are patients. Enqueues
+ * take the queue to twice the size and polls bring it back; updates and
+ * removals then pick patients that are waiting, removing half of them.
+ * Reported as mean ns per operation over several rounds, the first of
+ * which warms up and is not shown.
+ *
+ * Concurrent: desks enqueue the same number of patients from their own
+ * threads while one doctor thread polls; every patient must come out
+ * exactly once.
+ *
+ *   javac -d out *.java && java -cp out Service.TriageQueueBenchmark [patients] [desks]
+ */
+public class TriageQueueBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int patients = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int desks = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+
+        System.out.printf("%,d queued, ns/op:%n", patients);
+        System.out.printf("%6s %10s %10s %10s %10s%n", "round", "enqueue", "poll", "update", "remove");
+        for (int round = 0; round < ROUNDS; round++) {
+            double[] nanos = steadyState(patients, new Random(round));
+            if (round > 0) {
+                System.out.printf("%6d %10.0f %10.0f %10.0f %10.0f%n", round, nanos[0], nanos[1], nanos[2], nanos[3]);
+            }
+        }
+
+        long millis = concurrent(patients, desks);
+        System.out.printf("%d desks enqueued %,d patients while one thread polled: all out once, %d ms%n",
+                desks, patients, millis);
+        System.exit(0);
+    }
+
+    // Mean ns of enqueue, poll, update and remove on a queue of one to two times the given size
+    private static double[] steadyState(int patients, Random random) {
+        TriageQueue queue = new TriageQueue();
+        for (int id = 0; id < patients; id++) {
+            queue.enqueue(id, level(random));
+        }
+        queue.peek(); // drains the inbox into the heap
+
+        int operations = patients;
+        int nextId = patients;
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            queue.enqueue(nextId++, level(random));
+            queue.peek();
+        }
+        double enqueue = (double) (System.nanoTime() - start) / operations;
+
+        start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            queue.poll();
+        }
+        double poll = (double) (System.nanoTime() - start) / operations;
+
+        int[] waiting = queue.snapshot();
+        shuffle(waiting, random);
+        start = System.nanoTime();
+        for (int id : waiting) {
+            if (!queue.update(id, level(random))) {
+                throw new IllegalStateException("Patient " + id + " is not waiting");
+            }
+        }
+        double update = (double) (System.nanoTime() - start) / waiting.length;
+
+        shuffle(waiting, random);
+        int removals = waiting.length / 2;
+        start = System.nanoTime();
+        for (int i = 0; i < removals; i++) {
+            if (!queue.remove(waiting[i])) {
+                throw new IllegalStateException("Patient " + waiting[i] + " is not waiting");
+            }
+        }
+        double remove = (double) (System.nanoTime() - start) / removals;
+        if (queue.size() != waiting.length - removals) {
+            throw new IllegalStateException("Queue holds " + queue.size() + " patients, expected "
+                    + (waiting.length - removals));
+        }
+        return new double[]{enqueue, poll, update, remove};
+    }
+
+    private static void shuffle(int[] ids, Random random) {
+        for (int i = ids.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int id = ids[i];
+            ids[i] = ids[j];
+            ids[j] = id;
+        }
+    }
+
+    // Milliseconds until every patient the desks enqueued has been polled
+    private static long concurrent(int patients, int desks) throws InterruptedException {
+        TriageQueue queue = new TriageQueue();
+        ExecutorService pool = Executors.newFixedThreadPool(desks);
+        CountDownLatch enqueued = new CountDownLatch(desks);
+        long start = System.nanoTime();
+        for (int d = 0; d < desks; d++) {
+            int first = d * (patients / desks);
+            int last = d == desks - 1 ? patients : first + patients / desks;
+            pool.execute(() -> {
+                Random random = new Random(first);
+                for (int id = first; id < last; id++) {
+                    queue.enqueue(id, level(random));
+                }
+                enqueued.countDown();
+            });
+        }
+
+        boolean[] seen = new boolean[patients];
+        int polled = 0;
+        while (polled < patients) {
+            int id = queue.poll();
+            if (id >= 0) {
+                if (seen[id]) {
+                    throw new IllegalStateException("Patient " + id + " polled twice");
+                }
+                seen[id] = true;
+                polled++;
+            } else if (enqueued.getCount() == 0 && queue.size() == 0) {
+                throw new IllegalStateException("Only " + polled + " of " + patients + " patients polled");
+            }
+        }
+        pool.shutdown();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static int level(Random random) {
+        return TriageClassifier.CRITICAL + random.nextInt(TriageClassifier.NORMAL - TriageClassifier.CRITICAL + 1);
+    }
+}
@@ -0,0 +1,251 @@
+package Service;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.CRC32C;
+
+/**
+ * Segmented write-ahead log of mutation records.
+ *
+ * Segments are named name-00000001.wal, name-00000002.wal, ... and hold
+ * records framed as [int length][int crc32c][payload]. Appends go through a
+ * GroupCommitWriter. On open, every segment is verified on its own thread;
+ * the first torn or corrupt record truncates its segment and drops the
+ * segments after it, then the valid records are replayed in order.
+ *
+ * A snapshot owner calls roll() to start a fresh segment, writes its
+ * snapshot, then deleteBefore(segment) to discard the covered history.
+ */
+public class WriteAheadLog implements Closeable {
+
+    public static final int HEADER_BYTES = 8;
+
+    private static final long MAX_SEGMENT_BYTES = 64L * 1024 * 1024;
+
+    /** Receives each recovered payload in log order. */
+    public interface Replayer {
+        void apply(ByteBuffer payload) throws IOException;
+    }
+
+    private final Path dir;
+    private final String name;
+    private final GroupCommitWriter.Durability durability;
+    private final long fsyncIntervalMillis;
+
+    private long segmentNumber;
+    private FileChannel channel;
+    private GroupCommitWriter writer;
+
+    private WriteAheadLog(Path dir, String name,
+                          GroupCommitWriter.Durability durability, long fsyncIntervalMillis) {
+        this.dir = dir;
+        this.name = name;
+        this.durability = durability;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+    }
+
+    /**
+     * Recovers segments numbered firstSegment and above into the replayer,
+     * then opens the log for appends. Older segments are deleted.
+     */
+    public static WriteAheadLog open(Path dir, String name, long firstSegment, Replayer replayer,
+                                     GroupCommitWriter.Durability durability, long fsyncIntervalMillis)
+            throws IOException {
+        WriteAheadLog log = new WriteAheadLog(dir, name, durability, fsyncIntervalMillis);
+        long last = log.recover(firstSegment, replayer);
+        log.openSegment(Math.max(last, firstSegment));
+        return log;
+    }
+
+    // ===== APPENDS =====
+
+    /** Frames and queues the payload; completes at the configured durability. */
+    public synchronized CompletableFuture<Long> append(ByteBuffer payload) throws IOException {
+        if (writer.position() >= MAX_SEGMENT_BYTES) {
+            openSegment(segmentNumber + 1);
+        }
+        return writer.append(frame(payload));
+    }
+
+    /** Starts a new segment and returns its number; earlier segments become immutable. */
+    public synchronized long roll() throws IOException {
+        openSegment(segmentNumber + 1);
+        return segmentNumber;
+    }
+
+    /** Deletes every segment numbered below the given one. */
+    public synchronized void deleteBefore(long segment) throws IOException {
+        for (long number : listSegments()) {
+            if (number < segment && number != segmentNumber) {
+                Files.deleteIfExists(segmentPath(number));
+            }
+        }
+    }
+
+    public synchronized long currentSegment() {
+        return segmentNumber;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            channel.close();
+        }
+    }
+
+    // ===== FRAMING =====
+    static ByteBuffer frame(ByteBuffer payload) {
+        int length = payload.remaining();
+        ByteBuffer framed = ByteBuffer.allocate(HEADER_BYTES + length);
+        framed.putInt(length);
+        framed.putInt(checksum(payload, payload.position(), length));
+        framed.put(payload.duplicate());
+        framed.flip();
+        return framed;
+    }
+
+    static int checksum(ByteBuffer buffer, int from, int length) {
+        CRC32C crc = new CRC32C();
+        ByteBuffer slice = buffer.duplicate();
+        slice.limit(from + length).position(from);
+        crc.update(slice);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Returns the end of the last valid framed record in the buffer,
+     * starting at the given position.
+     */
+    static int validEnd(ByteBuffer buffer, int position) {
+        int limit = buffer.limit();
+        while (position + HEADER_BYTES <= limit) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > limit - position - HEADER_BYTES) {
+                break;
+            }
+            if (checksum(buffer, position + HEADER_BYTES, length) != buffer.getInt(position + 4)) {
+                break;
+            }
+            position += HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    // ===== RECOVERY =====
+    private long recover(long firstSegment, Replayer replayer) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        for (long number : listSegments()) {
+            if (number < firstSegment) {
+                Files.deleteIfExists(segmentPath(number));
+            } else {
+                numbers.add(number);
+            }
+        }
+        if (numbers.isEmpty()) {
+            return firstSegment;
+        }
+
+        // Read and verify all segments in parallel
+        ExecutorService pool = Executors.newFixedThreadPool(
+                Math.min(numbers.size(), Runtime.getRuntime().availableProcessors()));
+        List<Future<ByteBuffer>> verified = new ArrayList<>();
+        try {
+            for (long number : numbers) {
+                verified.add(pool.submit(() -> readAndVerify(segmentPath(number))));
+            }
+
+            // Replay in order; stop at the first segment with a bad tail
+            for (int i = 0; i < numbers.size(); i++) {
+                ByteBuffer segment = get(verified.get(i));
+                int end = segment.limit();
+                int position = 0;
+                while (position < end) {
+                    int length = segment.getInt(position);
+                    ByteBuffer payload = segment.duplicate();
+                    payload.limit(position + HEADER_BYTES + length).position(position + HEADER_BYTES);
+                    replayer.apply(payload.slice());
+                    position += HEADER_BYTES + length;
+                }
+
+                Path path = segmentPath(numbers.get(i));
+                if (end < Files.size(path)) {
+                    System.out.println("⚠ Truncating corrupt tail of " + path + " at byte " + end);
+                    try (FileChannel file = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                        file.truncate(end);
+                    }
+                    for (int j = i + 1; j < numbers.size(); j++) {
+                        Files.deleteIfExists(segmentPath(numbers.get(j)));
+                    }
+                    return numbers.get(i);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return numbers.get(numbers.size() - 1);
+    }
+
+    // Segments are read rather than mapped so a bad tail can be truncated afterwards
+    // (Windows refuses to truncate a file with a live mapping).
+    // The returned buffer's limit is the end of its last valid record.
+    private static ByteBuffer readAndVerify(Path path) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(file.size(), Integer.MAX_VALUE));
+            while (buffer.hasRemaining() && file.read(buffer) >= 0) {
+                // keep reading
+            }
+            buffer.flip();
+            buffer.limit(validEnd(buffer, 0));
+            return buffer;
+        }
+    }
+
+    private static ByteBuffer get(Future<ByteBuffer> future) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException
+                    ? (IOException) e.getCause() : new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during recovery");
+        }
+    }
+
+    // ===== SEGMENTS =====
+    private void openSegment(long number) throws IOException {
+        if (writer != null) {
+            writer.close();
+            channel.close();
+        }
+        segmentNumber = number;
+        channel = FileChannel.open(segmentPath(number), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        writer = new GroupCommitWriter(name + "-wal-writer", channel, durability, fsyncIntervalMillis);
+    }
+
+    private Path segmentPath(long number) {
+        return dir.resolve(String.format("%s-%08d.wal", name, number));
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        String prefix = name + "-";
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, prefix + "*.wal")) {
+            for (Path path : stream) {
+                String file = path.getFileName().toString();
+                try {
+                    numbers.add(Long.parseLong(file.substring(prefix.length(), file.length() - 4)));
+                } catch (NumberFormatException e) {
+                    // not one of ours
+                }
+            }
+        }
+        Collections.sort(numbers);
+        return numbers;
+    }
+}